@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openhab.core.events.EventPublisher;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
+import org.openhab.model.item.binding.BindingConfigParseException;
+
+/**
+ * An activated binding with a provider and items, but without an event bus. Updates
+ * go to an in-memory {@link EventPublisher}, which only counts them.
+ * <p>
+ * The hosts don't exist. The binding tries to connect each once and never again, and
+ * with <code>connectWait=0</code> commands don't wait for that connect. Without an
+ * offline queue they are dropped after encoding, so the measured path is lookup,
+ * parsing, state keeping and encoding, without the network. There is no heartbeat and
+ * no selector thread.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class BenchmarkFixture {
+
+	/** Counts the events instead of publishing them */
+	static class CountingEventPublisher implements EventPublisher {
+		long events;
+
+		@Override
+		public void sendCommand(String itemName, Command command) {
+			events++;
+		}
+
+		@Override
+		public void postCommand(String itemName, Command command) {
+			events++;
+		}
+
+		@Override
+		public void postUpdate(String itemName, State newState) {
+			events++;
+		}
+	}
+
+	/** Pins per host used for the items */
+	static final int PINS_PER_HOST = 40;
+
+	final GpioRemoteControlGenericBindingProvider provider = new GpioRemoteControlGenericBindingProvider();
+	final GpioRemoteControlBinding binding = new GpioRemoteControlBinding();
+	final CountingEventPublisher eventPublisher = new CountingEventPublisher();
+
+	BenchmarkFixture() {
+		Map<String, Object> configuration = new HashMap<>();
+		configuration.put("connectWait", "0");
+		configuration.put("heartbeatInterval", "0");
+		configuration.put("offlineQueueSize", "0");
+		configuration.put("reconnectDelay", "86400000");
+		configuration.put("reconnectMaxDelay", "86400000");
+		binding.setEventPublisher(eventPublisher);
+		binding.activate(null, configuration);
+		binding.addBindingProvider(provider);
+	}
+
+	/** Deactivates the binding and removes the items, the connections of their hosts are shared by all bindings */
+	void stop() {
+		provider.removeConfigurations("benchmark");
+		binding.execute(); //Closes the connections of the removed hosts
+		binding.deactivate(0);
+	}
+
+	/**
+	 * Adds an output item <code>out_i</code>, an input item <code>in_i</code> and a temperature
+	 * item <code>temp_i</code> for every i, spread over as many hosts as needed.
+	 */
+	void addItems(int count) throws BindingConfigParseException {
+		for (int i = 0; i < count; i++) {
+			String host = getHost(i / PINS_PER_HOST);
+			int pin = i % PINS_PER_HOST;
+			provider.processBindingConfiguration("benchmark", new SwitchItem("out_" + i), host + ";" + pin + ";out");
+			provider.processBindingConfiguration("benchmark", new SwitchItem("in_" + i), host + ";" + (pin + PINS_PER_HOST) + ";in");
+			provider.processBindingConfiguration("benchmark", new NumberItem("temp_" + i), host + ";" + getDeviceId(i) + ";temperature");
+		}
+	}
+
+	static String getHost(int hostIndex) {
+		return "10.0." + (hostIndex / 250) + "." + (hostIndex % 250 + 1) + ":1234";
+	}
+
+	static URI getHostUri(int hostIndex) {
+		try {
+			return new URI("ws://" + getHost(hostIndex));
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	static String getDeviceId(int i) {
+		return String.format("28-%012x", i);
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.core.library.types.IncreaseDecreaseType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.Command;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of every command form, alone and as part of <code>internalReceiveCommand</code>.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandParsingBenchmark {
+
+	@Param({ "ON", "OFF", "INCREASE", "DECREASE", "50%", "dim_50", "fade_2000_0_100", "fade_2000_0_100_true_3_500",
+			"fadeUpDown_2000_0_100", "fadeUpDown_2000_0_100_true_3_500", "blink_30", "blink_30_200_100_true_10" })
+	public String form;
+
+	private Command command;
+	private CommandParser cachedParser;
+	private CommandParser uncachedParser;
+	private BenchmarkFixture fixture;
+
+	@Setup
+	public void setUp() throws Exception {
+		if (form.equals("ON")) {
+			command = OnOffType.ON;
+		} else if (form.equals("OFF")) {
+			command = OnOffType.OFF;
+		} else if (form.equals("INCREASE")) {
+			command = IncreaseDecreaseType.INCREASE;
+		} else if (form.equals("DECREASE")) {
+			command = IncreaseDecreaseType.DECREASE;
+		} else if (form.endsWith("%")) {
+			command = new PercentType(Integer.parseInt(form.substring(0, form.length() - 1)));
+		} else {
+			command = new StringType(form);
+		}
+		cachedParser = new CommandParser(256);
+		uncachedParser = new CommandParser(0);
+		fixture = new BenchmarkFixture();
+		fixture.addItems(1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.stop();
+	}
+
+	/** Cache hit, the usual case for sitemap mappings */
+	@Benchmark
+	public ParsedCommand parseCached() {
+		return cachedParser.parse(command);
+	}
+
+	/** Cache miss, e.g. for slider values never seen before */
+	@Benchmark
+	public ParsedCommand parseUncached() {
+		return uncachedParser.parse(command);
+	}
+
+	/** Lookup, parsing, state keeping and encoding, up to the (missing) connection */
+	@Benchmark
+	public void internalReceiveCommand() {
+		fixture.binding.internalReceiveCommand("out_0", command);
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.BinaryCodec;
+import home.control.model.PinInput;
+import home.control.model.Temperature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+/**
+ * Decoding of the frames sent by the Pi, alone and as part of <code>receiveServerMessage</code>
+ * including the item lookup and the update of the (counting) event publisher.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodingBenchmark {
+
+	@Param({ "INPUT", "TEMP" })
+	public String frame;
+
+	private String json;
+	private byte[] binary;
+	private Class<?> gsonType;
+	private URI hostUri;
+
+	private final ServerMessageDecoder decoder = new ServerMessageDecoder();
+	private final Gson gson = new Gson();
+	private final PinInput pinInput = new PinInput();
+	private final Temperature temperature = new Temperature();
+	private BenchmarkFixture fixture;
+
+	@Setup
+	public void setUp() throws Exception {
+		if (frame.equals("INPUT")) {
+			PinInput input = new PinInput(BenchmarkFixture.PINS_PER_HOST, true, 1234);
+			json = "{\"number\":" + input.getNumber() + ",\"high\":true,\"timeSinceLastChange\":1234}";
+			binary = BinaryCodec.encode(input);
+			gsonType = PinInput.class;
+		} else {
+			Temperature reading = new Temperature(BenchmarkFixture.getDeviceId(0), "outside", 1431026406000L, 22500);
+			json = gson.toJson(reading);
+			binary = BinaryCodec.encode(reading);
+			gsonType = Temperature.class;
+		}
+		hostUri = BenchmarkFixture.getHostUri(0);
+		fixture = new BenchmarkFixture();
+		fixture.addItems(1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.stop();
+	}
+
+	@Benchmark
+	public ServerMessageDecoder.MessageType decoder() throws IOException {
+		return decoder.decode(json);
+	}
+
+	/** The generic Gson parsing used before */
+	@Benchmark
+	public Object gson() {
+		return gson.fromJson(json, gsonType);
+	}
+
+	@Benchmark
+	public Object binary() {
+		ByteBuffer buffer = ByteBuffer.wrap(binary);
+		if (gsonType == PinInput.class) {
+			return BinaryCodec.decodePinInput(buffer, pinInput);
+		}
+		return BinaryCodec.decodeTemperature(buffer, temperature);
+	}
+
+	@Benchmark
+	public long receiveServerMessage() {
+		fixture.binding.receiveServerMessage(hostUri, json);
+		return fixture.eventPublisher.events;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.BinaryCodec;
+import home.control.model.Event;
+import home.control.model.PinConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+/**
+ * Serialization of {@link PinConfiguration}s: the JSON encoder of the binding, Gson as it
+ * was used before, and the binary protocol.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+
+	@Param({ "SET", "DIM", "FADE", "FADE_UP_DOWN", "BLINK" })
+	public Event event;
+
+	private PinConfiguration pinConf;
+	private final PinConfigurationEncoder encoder = new PinConfigurationEncoder();
+	private final Gson gson = new Gson();
+
+	@Setup
+	public void setUp() {
+		switch (event) {
+		case SET:
+			pinConf = new PinConfiguration(Event.SET, 17, true);
+			break;
+		case DIM:
+			pinConf = new PinConfiguration(Event.DIM, 17, 42);
+			break;
+		case BLINK:
+			pinConf = new PinConfiguration(Event.BLINK, 17, 30, 200, 100, true, 10);
+			break;
+		default:
+			pinConf = new PinConfiguration(event, 17, 2000L, 0, 100, true, 3, 500);
+			break;
+		}
+	}
+
+	@Benchmark
+	public String encoder() {
+		return encoder.encode(pinConf);
+	}
+
+	@Benchmark
+	public String gson() {
+		return gson.toJson(pinConf);
+	}
+
+	@Benchmark
+	public byte[] binary() {
+		return BinaryCodec.encode(pinConf);
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding the item of a received frame, with a growing number of items. The lookup
+ * should not depend on the number of items.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LookupBenchmark {
+
+	@Param({ "10", "100", "1000", "10000" })
+	public int itemCount;
+
+	private BenchmarkFixture fixture;
+	private URI lastHostUri;
+	private int lastInputPin;
+	private String lastDeviceId;
+	private String lastItemName;
+
+	@Setup
+	public void setUp() throws Exception {
+		fixture = new BenchmarkFixture();
+		fixture.addItems(itemCount);
+		int last = itemCount - 1; //Worst case for a linear search
+		lastHostUri = BenchmarkFixture.getHostUri(last / BenchmarkFixture.PINS_PER_HOST);
+		lastInputPin = last % BenchmarkFixture.PINS_PER_HOST + BenchmarkFixture.PINS_PER_HOST;
+		lastDeviceId = BenchmarkFixture.getDeviceId(last);
+		lastItemName = "out_" + last;
+	}
+
+	@Benchmark
+	public String itemNameByPinNumber() {
+		return fixture.provider.getItemNameByPinNumber(lastHostUri, lastInputPin);
+	}
+
+	@Benchmark
+	public String itemNameByTemperatureDeviceId() {
+		return fixture.provider.getItemNameByTemperatureDeviceId(lastHostUri, lastDeviceId);
+	}
+
+	@Benchmark
+	public Object config() {
+		return fixture.provider.getConfig(lastItemName);
+	}
+}
@@ -0,0 +1,452 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.simulator;
+
+import home.control.model.BinaryCodec;
+import home.control.model.Event;
+import home.control.model.PinConfiguration;
+import home.control.model.PinInput;
+import home.control.model.Temperature;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * A fake GpioRemoteControl server on localhost. It speaks the protocol of the Pi:
+ * it takes {@link PinConfiguration} frames (single, as JSON array or binary) and keeps
+ * the resulting PWM value per pin, and it sends {@link PinInput} and {@link Temperature}
+ * frames at the rates of its {@link SimulatorSettings}. Commands with a sequence id are
+ * acknowledged to the connection they came from. Temperature requests are answered with
+ * the readings of all requested sensors in one frame.
+ * <p>
+ * Many instances can share one scheduler. Each instance uses two threads of the
+ * WebSocket server.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public class SimulatedPi extends WebSocketServer {
+
+	private static final Logger logger = LoggerFactory.getLogger(SimulatedPi.class);
+
+	/** DS18B20 resolution at 12 bit in 1/1000 °C */
+	private static final int TEMPERATURE_STEP = 62;
+
+	private final SimulatorSettings settings;
+	private final ScheduledExecutorService scheduler;
+	private final Random random;
+	private final Gson gson = new Gson();
+
+	private final Set<WebSocket> openConnections = new CopyOnWriteArraySet<>();
+	private final List<ScheduledFuture<?>> tasks = new CopyOnWriteArrayList<>();
+	private volatile ScheduledFuture<?> disconnectTask;
+	private volatile boolean running;
+	private volatile boolean powered = true;
+
+	/** PWM value 0-100 per pin, as set by the commands */
+	private final AtomicIntegerArray pwmValues = new AtomicIntegerArray(256);
+	private final boolean[] inputHigh;
+	private final long[] inputLastChange;
+	private final int[] temperatures;
+	private int nextSensor;
+
+	private final AtomicLong commandsReceived = new AtomicLong();
+	private final AtomicLong unreadableFrames = new AtomicLong();
+	private final AtomicLong framesSent = new AtomicLong();
+	private final AtomicLong connectionsDropped = new AtomicLong();
+	private final AtomicLong acksSent = new AtomicLong();
+	private final AtomicLong temperatureRequests = new AtomicLong();
+
+	/**
+	 * @param port the port on localhost
+	 * @param settings the behaviour of the Pi
+	 * @param scheduler sends the frames, shared by many instances
+	 */
+	public SimulatedPi(int port, SimulatorSettings settings, ScheduledExecutorService scheduler) {
+		super(new InetSocketAddress("localhost", port), 1);
+		this.settings = settings;
+		this.scheduler = scheduler;
+		this.random = new Random(port); //Reproducible runs
+		this.inputHigh = new boolean[settings.inputPins];
+		this.inputLastChange = new long[settings.inputPins];
+		this.temperatures = new int[settings.sensors];
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < settings.inputPins; i++) {
+			inputLastChange[i] = now;
+		}
+		for (int i = 0; i < settings.sensors; i++) {
+			temperatures[i] = 18000 + random.nextInt(8000);
+		}
+	}
+
+	/**
+	 * Starts the server and the sensors.
+	 */
+	public void startSimulation() {
+		running = true;
+		start();
+		if (settings.inputRate > 0 && settings.inputPins > 0) {
+			tasks.add(scheduler.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					changeInput();
+				}
+			}, 0, (long) (1000000 / settings.inputRate), TimeUnit.MICROSECONDS));
+		}
+		if (settings.temperatureRate > 0 && settings.sensors > 0) {
+			tasks.add(scheduler.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					readTemperature();
+				}
+			}, 0, (long) (1000000 / settings.temperatureRate), TimeUnit.MICROSECONDS));
+		}
+		if (settings.disconnectInterval > 0) {
+			scheduleDisconnect();
+		}
+	}
+
+	/**
+	 * Stops the sensors and the server.
+	 */
+	public void stopSimulation() throws InterruptedException {
+		running = false;
+		for (ScheduledFuture<?> task : tasks) {
+			task.cancel(false);
+		}
+		tasks.clear();
+		ScheduledFuture<?> disconnect = disconnectTask;
+		if (disconnect != null) {
+			disconnect.cancel(false);
+		}
+		try {
+			stop();
+		} catch (IOException e) {
+			logger.debug("Stopping simulated Pi {} failed: {}", getPort(), e.toString());
+		}
+	}
+
+	/**
+	 * <code>false</code> simulates a Pi which lost its power: its TCP connections stay open,
+	 * but it doesn't answer or send anything, not even pongs.
+	 */
+	public void setPowered(boolean powered) {
+		this.powered = powered;
+	}
+
+	/**
+	 * @return the PWM value 0-100 the pin was set to by the commands
+	 */
+	public int getPwmValue(int pinNumber) {
+		return pwmValues.get(pinNumber);
+	}
+
+	public long getCommandsReceived() {
+		return commandsReceived.get();
+	}
+
+	public long getUnreadableFrames() {
+		return unreadableFrames.get();
+	}
+
+	public long getFramesSent() {
+		return framesSent.get();
+	}
+
+	public long getConnectionsDropped() {
+		return connectionsDropped.get();
+	}
+
+	public long getAcksSent() {
+		return acksSent.get();
+	}
+
+	public long getTemperatureRequests() {
+		return temperatureRequests.get();
+	}
+
+	public int getOpenConnections() {
+		return openConnections.size();
+	}
+
+	/**
+	 * @return the device id of the sensor with the given index, unique per port
+	 */
+	public String getDeviceId(int sensor) {
+		return String.format("28-%06x%06x", getPort(), sensor);
+	}
+
+	@Override
+	public void onOpen(WebSocket conn, ClientHandshake handshake) {
+		openConnections.add(conn);
+	}
+
+	@Override
+	public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+		openConnections.remove(conn);
+	}
+
+	@Override
+	public void onError(WebSocket conn, Exception ex) {
+		logger.debug("Simulated Pi {}: error on connection: {}", getPort(), ex.toString());
+	}
+
+	@Override
+	public void onWebsocketPing(WebSocket conn, Framedata ping) {
+		if (powered) {
+			super.onWebsocketPing(conn, ping);
+		}
+	}
+
+	@Override
+	public void onMessage(WebSocket conn, String message) {
+		if (!powered) {
+			return;
+		}
+		try {
+			JsonElement frame = new JsonParser().parse(message);
+			if (frame.isJsonObject() && frame.getAsJsonObject().has("deviceIds")) { //Temperature request
+				List<String> deviceIds = new ArrayList<>();
+				for (JsonElement deviceId : frame.getAsJsonObject().getAsJsonArray("deviceIds")) {
+					deviceIds.add(deviceId.getAsString());
+				}
+				answerTemperatureRequest(conn, deviceIds);
+			} else if (frame.isJsonArray()) { //Batched frames
+				for (JsonElement element : frame.getAsJsonArray()) {
+					apply(conn, gson.fromJson(element, PinConfiguration.class));
+				}
+			} else {
+				apply(conn, gson.fromJson(frame, PinConfiguration.class));
+			}
+		} catch (RuntimeException e) {
+			unreadableFrames.incrementAndGet();
+			logger.debug("Simulated Pi {}: unreadable frame {}", getPort(), message);
+		}
+	}
+
+	@Override
+	public void onMessage(WebSocket conn, ByteBuffer message) {
+		if (!powered) {
+			return;
+		}
+		try {
+			while (message.hasRemaining()) {
+				if (BinaryCodec.peekEvent(message) == Event.TEMP) {
+					answerTemperatureRequest(conn, BinaryCodec.decodeTemperatureRequest(message));
+				} else {
+					apply(conn, BinaryCodec.decodePinConfiguration(message));
+				}
+			}
+		} catch (RuntimeException e) {
+			unreadableFrames.incrementAndGet();
+			logger.debug("Simulated Pi {}: unreadable binary frame: {}", getPort(), e.toString());
+		}
+	}
+
+	private void apply(WebSocket conn, PinConfiguration pinConf) {
+		commandsReceived.incrementAndGet();
+		int pin = pinConf.getNumber();
+		if (pin < 0 || pin >= pwmValues.length() || pinConf.getEvent() == null) {
+			unreadableFrames.incrementAndGet();
+			return;
+		}
+		switch (pinConf.getEvent()) {
+		case SET:
+			pwmValues.set(pin, pinConf.isOutputHigh() ? 100 : 0);
+			break;
+		case DIM:
+			pwmValues.set(pin, pinConf.getPwmValue());
+			break;
+		case FADE:
+		case FADE_UP_DOWN:
+			pwmValues.set(pin, pinConf.getEndVal()); //Where the effect ends
+			break;
+		default: //BLINK ends where it started
+			break;
+		}
+		if (pinConf.getSeq() != 0 && (settings.ackLoss <= 0 || random.nextDouble() >= settings.ackLoss)) {
+			acksSent.incrementAndGet();
+			if (settings.binary) {
+				send(conn, BinaryCodec.encodeAck(pinConf.getSeq()));
+			} else {
+				send(conn, "{\"event\":\"ACK\",\"seq\":" + pinConf.getSeq() + "}");
+			}
+		}
+	}
+
+	private synchronized void changeInput() {
+		int index = random.nextInt(settings.inputPins);
+		long now = System.currentTimeMillis();
+		PinInput pinInput = new PinInput(settings.firstInputPin + index, !inputHigh[index], now - inputLastChange[index]);
+		send(pinInput);
+		for (int i = 0; i < settings.bounces; i++) { //Bounce back and forth within a few ms
+			send(new PinInput(pinInput.getNumber(), i % 2 == 1, 1 + random.nextInt(3)));
+			send(new PinInput(pinInput.getNumber(), i % 2 == 0, 1 + random.nextInt(3)));
+		}
+		inputHigh[index] = !inputHigh[index];
+		inputLastChange[index] = now;
+	}
+
+	private synchronized void readTemperature() {
+		int sensor = nextSensor;
+		nextSensor = (nextSensor + 1) % settings.sensors;
+		temperatures[sensor] += (random.nextInt(3) - 1) * TEMPERATURE_STEP; //Random walk
+		send(new Temperature(getDeviceId(sensor), "sensor" + sensor, System.currentTimeMillis(), temperatures[sensor]));
+	}
+
+	/**
+	 * Reads the requested sensors and sends the readings of the known ones in one frame,
+	 * a JSON array or binary records one after another.
+	 */
+	private synchronized void answerTemperatureRequest(WebSocket conn, List<String> deviceIds) {
+		temperatureRequests.incrementAndGet();
+		JsonArray json = new JsonArray();
+		List<byte[]> records = new ArrayList<>();
+		int size = 0;
+		long now = System.currentTimeMillis();
+		for (String deviceId : deviceIds) {
+			int sensor = getSensor(deviceId);
+			if (sensor < 0) {
+				continue; //Not connected to this Pi
+			}
+			temperatures[sensor] += (random.nextInt(3) - 1) * TEMPERATURE_STEP;
+			Temperature temperature = new Temperature(deviceId, "sensor" + sensor, now, temperatures[sensor]);
+			if (settings.binary) {
+				byte[] record = BinaryCodec.encode(temperature);
+				records.add(record);
+				size += record.length;
+			} else {
+				json.add(gson.toJsonTree(temperature));
+			}
+		}
+		if (settings.binary) {
+			ByteBuffer frame = ByteBuffer.allocate(size);
+			for (byte[] record : records) {
+				frame.put(record);
+			}
+			send(conn, frame.array());
+		} else {
+			send(conn, json.toString());
+		}
+	}
+
+	/** @return the index of the sensor with the device id, -1 if it is not one of this Pi */
+	private int getSensor(String deviceId) {
+		for (int i = 0; i < settings.sensors; i++) {
+			if (getDeviceId(i).equals(deviceId)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void send(PinInput pinInput) {
+		if (settings.binary) {
+			send(BinaryCodec.encode(pinInput));
+		} else {
+			send(gson.toJson(pinInput));
+		}
+	}
+
+	private void send(Temperature temperature) {
+		if (settings.binary) {
+			send(BinaryCodec.encode(temperature));
+		} else {
+			send(gson.toJson(temperature));
+		}
+	}
+
+	/**
+	 * Sends the frame (String or byte[]) to all connections, after the latency.
+	 */
+	private void send(Object frame) {
+		send(null, frame);
+	}
+
+	/**
+	 * Sends the frame (String or byte[]) to the connection, or to all connections if it is
+	 * <code>null</code>, after the latency.
+	 */
+	private void send(final WebSocket target, final Object frame) {
+		long delay = settings.latency + (settings.latencyJitter > 0 ? (long) (random.nextDouble() * settings.latencyJitter) : 0);
+		if (delay <= 0) {
+			sendNow(target, frame);
+			return;
+		}
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				sendNow(target, frame);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void sendNow(WebSocket target, Object frame) {
+		if (!powered) {
+			return;
+		}
+		for (WebSocket conn : openConnections) {
+			if (target != null && conn != target) {
+				continue;
+			}
+			try {
+				if (frame instanceof byte[]) {
+					conn.send((byte[]) frame);
+				} else {
+					conn.send((String) frame);
+				}
+				framesSent.incrementAndGet();
+			} catch (RuntimeException e) { //Closed meanwhile
+				openConnections.remove(conn);
+			}
+		}
+	}
+
+	private void scheduleDisconnect() {
+		long delay = (long) (-Math.log(1 - random.nextDouble()) * settings.disconnectInterval); //Exponential, like random failures
+		disconnectTask = scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (!running) {
+					return;
+				}
+				for (WebSocket conn : openConnections) {
+					conn.close(CloseFrame.GOING_AWAY);
+					connectionsDropped.incrementAndGet();
+				}
+				scheduleDisconnect();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+}
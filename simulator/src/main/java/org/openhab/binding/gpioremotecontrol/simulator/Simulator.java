@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts many {@link SimulatedPi}s on consecutive ports of localhost, for load and soak
+ * tests of the binding without real Pis. Prints the statistics of all Pis periodically
+ * and, with <code>--items</code>, the lines of an items file for them.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public class Simulator {
+
+	/** Pin of the output item printed per Pi */
+	private static final int OUTPUT_PIN = 17;
+
+	private final List<SimulatedPi> pis = new ArrayList<SimulatedPi>();
+	private final ScheduledExecutorService scheduler;
+
+	public Simulator(int hosts, int basePort, SimulatorSettings settings, int threads) {
+		scheduler = Executors.newScheduledThreadPool(threads);
+		for (int i = 0; i < hosts; i++) {
+			pis.add(new SimulatedPi(basePort + i, settings, scheduler));
+		}
+	}
+
+	public List<SimulatedPi> getPis() {
+		return pis;
+	}
+
+	public void start() {
+		for (SimulatedPi pi : pis) {
+			pi.startSimulation();
+		}
+	}
+
+	public void stop() throws InterruptedException {
+		for (SimulatedPi pi : pis) {
+			pi.stopSimulation();
+		}
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * @return open connections, received commands, sent ACKs, answered temperature requests, unreadable frames, sent frames and dropped connections of all Pis
+	 */
+	public String getStatistics() {
+		long connections = 0, commands = 0, acks = 0, temperatureRequests = 0, unreadable = 0, sent = 0, dropped = 0;
+		for (SimulatedPi pi : pis) {
+			connections += pi.getOpenConnections();
+			commands += pi.getCommandsReceived();
+			acks += pi.getAcksSent();
+			temperatureRequests += pi.getTemperatureRequests();
+			unreadable += pi.getUnreadableFrames();
+			sent += pi.getFramesSent();
+			dropped += pi.getConnectionsDropped();
+		}
+		return String.format("connections=%d commands=%d acks=%d temperatureRequests=%d unreadable=%d sent=%d dropped=%d", connections,
+				commands, acks, temperatureRequests, unreadable, sent, dropped);
+	}
+
+	/**
+	 * Prints one output item, the input items and the temperature items of every Pi.
+	 */
+	public void printItems(SimulatorSettings settings) {
+		for (SimulatedPi pi : pis) {
+			int port = pi.getPort();
+			String host = "localhost:" + port;
+			System.out.println("Dimmer sim_" + port + "_out { gpioremotecontrol=\"" + host + ";" + OUTPUT_PIN + ";out\" }");
+			for (int i = 0; i < settings.inputPins; i++) {
+				int pin = settings.firstInputPin + i;
+				System.out.println("Switch sim_" + port + "_in" + pin + " { gpioremotecontrol=\"" + host + ";" + pin
+						+ ";in\" }");
+			}
+			for (int i = 0; i < settings.sensors; i++) {
+				System.out.println("Number sim_" + port + "_temp" + i + " { gpioremotecontrol=\"" + host + ";"
+						+ pi.getDeviceId(i) + ";temperature\" }");
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		SimulatorSettings settings = new SimulatorSettings();
+		int hosts = 10;
+		int basePort = 20000;
+		int threads = 4;
+		long statisticsInterval = 10000;
+		boolean items = false;
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("--help")) {
+				usage("GpioRemoteControl simulator");
+			}
+			if (arg.equals("--binary")) {
+				settings.binary = true;
+				continue;
+			}
+			if (arg.equals("--items")) {
+				items = true;
+				continue;
+			}
+			if (i + 1 >= args.length) {
+				usage("Missing value of " + arg);
+			}
+			String value = args[++i];
+			try {
+				if (arg.equals("--hosts")) {
+					hosts = Integer.parseInt(value);
+				} else if (arg.equals("--basePort")) {
+					basePort = Integer.parseInt(value);
+				} else if (arg.equals("--threads")) {
+					threads = Integer.parseInt(value);
+				} else if (arg.equals("--statisticsInterval")) {
+					statisticsInterval = Long.parseLong(value);
+				} else if (arg.equals("--inputPins")) {
+					settings.inputPins = Integer.parseInt(value);
+				} else if (arg.equals("--firstInputPin")) {
+					settings.firstInputPin = Integer.parseInt(value);
+				} else if (arg.equals("--inputRate")) {
+					settings.inputRate = Double.parseDouble(value);
+				} else if (arg.equals("--bounces")) {
+					settings.bounces = Integer.parseInt(value);
+				} else if (arg.equals("--sensors")) {
+					settings.sensors = Integer.parseInt(value);
+				} else if (arg.equals("--temperatureRate")) {
+					settings.temperatureRate = Double.parseDouble(value);
+				} else if (arg.equals("--latency")) {
+					settings.latency = Long.parseLong(value);
+				} else if (arg.equals("--latencyJitter")) {
+					settings.latencyJitter = Long.parseLong(value);
+				} else if (arg.equals("--disconnectInterval")) {
+					settings.disconnectInterval = Long.parseLong(value);
+				} else if (arg.equals("--ackLoss")) {
+					settings.ackLoss = Double.parseDouble(value);
+				} else {
+					usage("Unknown option " + arg);
+				}
+			} catch (NumberFormatException e) {
+				usage("Invalid value of " + arg + ": " + value);
+			}
+		}
+
+		final Simulator simulator = new Simulator(hosts, basePort, settings, threads);
+		if (items) {
+			simulator.printItems(settings);
+		}
+		simulator.start();
+		System.err.println("Simulating " + hosts + " Pis on localhost:" + basePort + "-" + (basePort + hosts - 1));
+
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try {
+					simulator.stop();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				System.err.println(simulator.getStatistics());
+			}
+		});
+
+		while (true) {
+			TimeUnit.MILLISECONDS.sleep(statisticsInterval);
+			System.err.println(simulator.getStatistics());
+		}
+	}
+
+	private static void usage(String error) {
+		System.err.println(error);
+		System.err.println("Options: --hosts <n> --basePort <port> --threads <n> --statisticsInterval <ms>");
+		System.err.println("  --inputPins <n> --firstInputPin <pin> --inputRate <per s> --bounces <n>");
+		System.err.println("  --sensors <n> --temperatureRate <per s>");
+		System.err.println("  --latency <ms> --latencyJitter <ms> --disconnectInterval <ms> --ackLoss <0-1> --binary --items");
+		System.exit(1);
+	}
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.simulator;
+
+/**
+ * Behaviour of the simulated Pis. The defaults describe a quiet, reliable Pi.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public class SimulatorSettings {
+
+	/** Number of input pins, numbered from {@link #firstInputPin} on */
+	public int inputPins = 4;
+
+	public int firstInputPin = 20;
+
+	/** Level changes per second over all input pins of a Pi, 0 = none */
+	public double inputRate = 0.1;
+
+	/** Additional short edges sent for every level change, like a bouncing contact */
+	public int bounces = 0;
+
+	/** Number of DS18B20 sensors of a Pi */
+	public int sensors = 1;
+
+	/** Temperature readings per second over all sensors of a Pi, 0 = only on request */
+	public double temperatureRate = 0.1;
+
+	/** Delay in ms of every frame sent by a Pi */
+	public long latency = 0;
+
+	/** Random additional delay in ms of every frame sent, up to this value */
+	public long latencyJitter = 0;
+
+	/** Mean time in ms between two dropped connections of a Pi, 0 = never */
+	public long disconnectInterval = 0;
+
+	/** Send the frames in the binary protocol instead of JSON */
+	public boolean binary = false;
+
+	/** Share 0-1 of the commands with sequence id whose ACK is lost */
+	public double ackLoss = 0;
+}
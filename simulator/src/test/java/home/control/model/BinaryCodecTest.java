@@ -0,0 +1,179 @@
+package home.control.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Round trips of every record of the {@link BinaryCodec}, as the binding and the Pi send them.
+ */
+public class BinaryCodecTest {
+
+	@Test
+	public void set() {
+		PinConfiguration decoded = roundTrip(new PinConfiguration(Event.SET, 17, true));
+		assertEquals(Event.SET, decoded.getEvent());
+		assertEquals(17, decoded.getNumber());
+		assertTrue(decoded.isOutputHigh());
+		assertFalse(roundTrip(new PinConfiguration(Event.SET, 17, false)).isOutputHigh());
+	}
+
+	@Test
+	public void dim() {
+		PinConfiguration decoded = roundTrip(new PinConfiguration(Event.DIM, 200, 100));
+		assertEquals(Event.DIM, decoded.getEvent());
+		assertEquals(200, decoded.getNumber());
+		assertEquals(100, decoded.getPwmValue());
+		assertEquals(0, roundTrip(new PinConfiguration(Event.DIM, 1, 0)).getPwmValue());
+		PinConfiguration tooBright = new PinConfiguration(Event.DIM, 1, 0);
+		tooBright.setPwmValue(200);
+		assertEquals(100, roundTrip(tooBright).getPwmValue());
+	}
+
+	@Test
+	public void fade() {
+		assertFade(Event.FADE);
+	}
+
+	@Test
+	public void fadeUpDown() {
+		assertFade(Event.FADE_UP_DOWN);
+	}
+
+	@Test
+	public void fadeValuesAreLimitedLikeInJson() {
+		PinConfiguration decoded = roundTrip(new PinConfiguration(Event.FADE, 4, 2000, -5, 300, false, 0, 0));
+		assertEquals(0, decoded.getStartVal());
+		assertEquals(100, decoded.getEndVal());
+	}
+
+	@Test
+	public void blink() {
+		PinConfiguration decoded = roundTrip(new PinConfiguration(Event.BLINK, 5, 300, 700, 80, true, 10));
+		assertEquals(Event.BLINK, decoded.getEvent());
+		assertEquals(5, decoded.getNumber());
+		assertEquals(300, decoded.getUptime());
+		assertEquals(700, decoded.getDowntime());
+		assertEquals(80, decoded.getPwmValue());
+		assertTrue(decoded.isRepeat());
+		assertEquals(10, decoded.getCycles());
+	}
+
+	@Test
+	public void shutdownAndReboot() {
+		PinConfiguration shutdown = new PinConfiguration(-1);
+		shutdown.setEvent(Event.SHUTDOWN);
+		assertEquals(Event.SHUTDOWN, roundTrip(shutdown).getEvent());
+		assertEquals(-1, roundTrip(shutdown).getNumber());
+		PinConfiguration reboot = new PinConfiguration(-1);
+		reboot.setEvent(Event.REBOOT);
+		assertEquals(Event.REBOOT, roundTrip(reboot).getEvent());
+	}
+
+	@Test
+	public void sequenceId() {
+		PinConfiguration pinConf = new PinConfiguration(Event.DIM, 17, 50);
+		pinConf.setSeq(123456);
+		PinConfiguration decoded = roundTrip(pinConf);
+		assertEquals(123456, decoded.getSeq());
+		assertEquals(50, decoded.getPwmValue());
+		assertEquals(0, roundTrip(new PinConfiguration(Event.DIM, 17, 50)).getSeq());
+	}
+
+	@Test
+	public void input() {
+		ByteBuffer buffer = ByteBuffer.wrap(BinaryCodec.encode(new PinInput(23, true, 1234567890123L)));
+		assertEquals(Event.INPUT, BinaryCodec.peekEvent(buffer));
+		PinInput decoded = BinaryCodec.decodePinInput(buffer, new PinInput());
+		assertEquals(23, decoded.getNumber());
+		assertTrue(decoded.getIsHigh());
+		assertEquals(1234567890123L, decoded.getTimeSinceLastChange());
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void temperature() {
+		ByteBuffer buffer = ByteBuffer.wrap(BinaryCodec.encode(new Temperature("28-00044a7273ff", "Küche °C", 1400000000000L, -12345)));
+		assertEquals(Event.TEMP, BinaryCodec.peekEvent(buffer));
+		Temperature decoded = BinaryCodec.decodeTemperature(buffer, new Temperature());
+		assertEquals("28-00044a7273ff", decoded.getDeviceId());
+		assertEquals("Küche °C", decoded.getName());
+		assertEquals(1400000000000L, decoded.getTimeStamp());
+		assertEquals(-12345, decoded.getTemperature());
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void temperatureRequest() {
+		List<String> deviceIds = Arrays.asList("28-00044a7273ff", "28-00044a7273fe");
+		ByteBuffer buffer = ByteBuffer.wrap(BinaryCodec.encodeTemperatureRequest(deviceIds));
+		assertEquals(Event.TEMP, BinaryCodec.peekEvent(buffer));
+		assertEquals(deviceIds, BinaryCodec.decodeTemperatureRequest(buffer));
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void ack() {
+		ByteBuffer buffer = ByteBuffer.wrap(BinaryCodec.encodeAck(987654));
+		assertEquals(Event.ACK, BinaryCodec.peekEvent(buffer));
+		assertEquals(987654, BinaryCodec.decodeAck(buffer));
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void concatenatedRecords() {
+		byte[] set = BinaryCodec.encode(new PinConfiguration(Event.SET, 1, true));
+		byte[] dim = BinaryCodec.encode(new PinConfiguration(Event.DIM, 2, 40));
+		ByteBuffer buffer = ByteBuffer.allocate(set.length + dim.length).put(set).put(dim);
+		buffer.flip();
+		assertEquals(Event.SET, BinaryCodec.decodePinConfiguration(buffer).getEvent());
+		assertEquals(40, BinaryCodec.decodePinConfiguration(buffer).getPwmValue());
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void longStringIsRejected() {
+		char[] name = new char[128];
+		Arrays.fill(name, 'ü'); //2 bytes each
+		BinaryCodec.encode(new Temperature("28-00044a7273ff", new String(name), 0, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void longDeviceIdInRequestIsRejected() {
+		char[] deviceId = new char[256];
+		Arrays.fill(deviceId, 'a');
+		BinaryCodec.encodeTemperatureRequest(Collections.singletonList(new String(deviceId)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void largePinNumberIsRejected() {
+		BinaryCodec.encode(new PinConfiguration(Event.SET, 255, true));
+	}
+
+	private void assertFade(Event event) {
+		PinConfiguration decoded = roundTrip(new PinConfiguration(event, 4, 2000, 10, 100, true, 3, 500));
+		assertEquals(event, decoded.getEvent());
+		assertEquals(4, decoded.getNumber());
+		assertEquals(2000, decoded.getCycleDuration());
+		assertEquals(10, decoded.getStartVal());
+		assertEquals(100, decoded.getEndVal());
+		assertTrue(decoded.isRepeat());
+		assertEquals(3, decoded.getCycles());
+		assertEquals(500, decoded.getCyclePause());
+	}
+
+	private PinConfiguration roundTrip(PinConfiguration pinConf) {
+		ByteBuffer buffer = ByteBuffer.wrap(BinaryCodec.encode(pinConf));
+		assertEquals(pinConf.getEvent(), BinaryCodec.peekEvent(buffer));
+		PinConfiguration decoded = BinaryCodec.decodePinConfiguration(buffer);
+		assertFalse(buffer.hasRemaining());
+		return decoded;
+	}
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openhab.binding.gpioremotecontrol.simulator.SimulatedPi;
+import org.openhab.binding.gpioremotecontrol.simulator.Simulator;
+import org.openhab.binding.gpioremotecontrol.simulator.SimulatorSettings;
+import org.openhab.core.events.EventPublisher;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
+
+/**
+ * Runs the {@link GpioRemoteControlBinding} against many {@link SimulatedPi}s, which send
+ * inputs and temperatures and drop their connections now and then. Dimmer commands are sent
+ * to every Pi in rounds; in the end every Pi must have the value of the last round.
+ * <p>
+ * Defaults to a short load test. For a soak test raise the number of Pis and the duration:
+ * <code>mvn test -Dloadtest.hosts=200 -Dloadtest.duration=3600000</code>
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public class BindingLoadTest {
+
+	private static final int HOSTS = Integer.getInteger("loadtest.hosts", 20);
+	private static final long DURATION = Long.getLong("loadtest.duration", 10000);
+	private static final int BASE_PORT = Integer.getInteger("loadtest.basePort", 28000);
+	private static final int OUTPUT_PIN = 17;
+	private static final long ROUND = 500;
+	/** Time for the reconnects and the held commands after the last round */
+	private static final long SETTLE_TIME = 15000;
+
+	/** Counts the updates instead of publishing them */
+	private static class CountingEventPublisher implements EventPublisher {
+		final AtomicLong updates = new AtomicLong();
+
+		@Override
+		public void sendCommand(String itemName, Command command) {
+		}
+
+		@Override
+		public void postCommand(String itemName, Command command) {
+		}
+
+		@Override
+		public void postUpdate(String itemName, State newState) {
+			updates.incrementAndGet();
+		}
+	}
+
+	private Simulator simulator;
+	private GpioRemoteControlBinding binding;
+	private GpioRemoteControlGenericBindingProvider provider;
+
+	@After
+	public void stop() throws InterruptedException {
+		if (provider != null) {
+			provider.removeConfigurations("load"); //The hosts are shared by all bindings, the next test must not connect them
+		}
+		if (binding != null) {
+			binding.execute();
+			binding.deactivate(0);
+		}
+		if (simulator != null) {
+			simulator.stop();
+		}
+	}
+
+	@Test
+	public void threadPerConnection() throws Exception {
+		run(BASE_PORT, new HashMap<String, Object>(), false);
+	}
+
+	@Test
+	public void selectorThreads() throws Exception {
+		Map<String, Object> configuration = new HashMap<>();
+		configuration.put("selectorThreads", "2");
+		run(BASE_PORT + HOSTS, configuration, false);
+	}
+
+	@Test
+	public void binaryProtocol() throws Exception {
+		Map<String, Object> configuration = new HashMap<>();
+		configuration.put("selectorThreads", "2");
+		run(BASE_PORT + 2 * HOSTS, configuration, true);
+	}
+
+	private void run(int basePort, Map<String, Object> configuration, boolean binary) throws Exception {
+		SimulatorSettings settings = new SimulatorSettings();
+		settings.inputRate = 2;
+		settings.temperatureRate = 1;
+		settings.latencyJitter = 20;
+		settings.disconnectInterval = DURATION / 2;
+		settings.binary = binary;
+		simulator = new Simulator(HOSTS, basePort, settings, 2);
+		simulator.start();
+
+		StringBuilder hosts = new StringBuilder();
+		for (SimulatedPi pi : simulator.getPis()) {
+			hosts.append(hosts.length() == 0 ? "" : ",").append("localhost:").append(pi.getPort());
+		}
+		if (binary) {
+			configuration.put("binaryHosts", hosts.toString());
+		}
+		configuration.put("reconnectDelay", "200");
+		binding = new GpioRemoteControlBinding();
+		CountingEventPublisher eventPublisher = new CountingEventPublisher();
+		binding.setEventPublisher(eventPublisher);
+		binding.activate(null, configuration);
+
+		provider = new GpioRemoteControlGenericBindingProvider();
+		for (SimulatedPi pi : simulator.getPis()) {
+			String host = "localhost:" + pi.getPort();
+			provider.processBindingConfiguration("load", new SwitchItem("out" + pi.getPort()), host + ";" + OUTPUT_PIN + ";out");
+			provider.processBindingConfiguration("load", new SwitchItem("in" + pi.getPort()), host + ";" + settings.firstInputPin + ";in");
+			provider.processBindingConfiguration("load", new NumberItem("temp" + pi.getPort()), host + ";" + pi.getDeviceId(0) + ";temperature");
+		}
+		binding.addBindingProvider(provider);
+
+		int value = 0;
+		long end = System.currentTimeMillis() + DURATION;
+		while (System.currentTimeMillis() < end) {
+			value = value % 100 + 1;
+			for (SimulatedPi pi : simulator.getPis()) {
+				binding.internalReceiveCommand("out" + pi.getPort(), new StringType("dim_" + value));
+			}
+			binding.execute();
+			Thread.sleep(ROUND);
+		}
+
+		long settled = System.currentTimeMillis() + SETTLE_TIME;
+		int correct;
+		do {
+			Thread.sleep(ROUND);
+			binding.execute();
+			correct = 0;
+			for (SimulatedPi pi : simulator.getPis()) {
+				if (pi.getPwmValue(OUTPUT_PIN) == value) {
+					correct++;
+				}
+			}
+		} while (correct < HOSTS && System.currentTimeMillis() < settled);
+
+		String statistics = simulator.getStatistics();
+		assertEquals("Pis with the last value, " + statistics, HOSTS, correct);
+		assertTrue("No updates posted, " + statistics, eventPublisher.updates.get() > 0);
+		for (SimulatedPi pi : simulator.getPis()) {
+			assertEquals("Unreadable frames at " + pi.getPort(), 0, pi.getUnreadableFrames());
+		}
+	}
+}
@@ -0,0 +1,348 @@
+package home.control.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reference encoder and decoder of the binary wire protocol, an alternative to the JSON frames
+ * for small Pis. Shared by the binding and the Pi side, so it only depends on the model classes.
+ * <p>
+ * A binary WebSocket message holds one or more records. Each record starts with a fixed header
+ * of two bytes, followed by the values of its event. All numbers are big endian, times in ms,
+ * flags are bit 0 of a byte:
+ * <pre>
+ * header        event code (1 byte), pin number (1 byte, 0-254, 255 = none)
+ * SET           outputHigh flag (1)
+ * DIM           pwmValue (1)
+ * FADE          cycleDuration (4), startVal (1), endVal (1), repeat flag (1), cycles (4), cyclePause (4)
+ * FADE_UP_DOWN  like FADE
+ * BLINK         uptime (4), downtime (4), pwmValue (1), repeat flag (1), cycles (4)
+ * INPUT         high flag (1), timeSinceLastChange (8)
+ * TEMP          temperature in 1/1000 °C (4), timeStamp (8), deviceId length (1) and UTF-8 bytes, name length (1) and UTF-8 bytes
+ *               sent to the server it requests readings: count (1), per sensor deviceId length (1) and UTF-8 bytes
+ * SHUTDOWN      -
+ * REBOOT        -
+ * ACK           seq (4), the sequence id of the acknowledged command
+ * </pre>
+ * A command with a sequence id has bit 7 of its event code set and the sequence id (4) right
+ * after the header. The server answers it with an ACK record.
+ * <p>
+ * PWM values (pwmValue, startVal, endVal) are unsigned bytes from 0 to 100, larger and smaller
+ * values are limited like by the setters of {@link PinConfiguration}. Strings have at most 255
+ * UTF-8 bytes, longer ones are rejected.
+ */
+public final class BinaryCodec {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** Event codes on the wire. Fixed, so reordering {@link Event} doesn't break the protocol. */
+	private static final byte SET = 1, DIM = 2, FADE = 3, FADE_UP_DOWN = 4, BLINK = 5, INPUT = 6, TEMP = 7, SHUTDOWN = 8, REBOOT = 9, ACK = 10;
+
+	/** Set in the event code of commands which carry a sequence id */
+	private static final int SEQ_FLAG = 0x80;
+
+	private static final int HEADER_SIZE = 2;
+	private static final int NO_PIN = 0xFF;
+
+	private BinaryCodec() {
+	}
+
+	/**
+	 * @return the binary record of the command
+	 */
+	public static byte[] encode(PinConfiguration pinConf) {
+		ByteBuffer buffer;
+		int seq = pinConf.getSeq();
+		switch (pinConf.getEvent()) {
+		case SET:
+			buffer = header(SET, pinConf.getNumber(), seq, 1);
+			buffer.put(flag(pinConf.isOutputHigh()));
+			break;
+		case DIM:
+			buffer = header(DIM, pinConf.getNumber(), seq, 1);
+			buffer.put(percent(pinConf.getPwmValue()));
+			break;
+		case FADE:
+		case FADE_UP_DOWN:
+			buffer = header(pinConf.getEvent() == Event.FADE ? FADE : FADE_UP_DOWN, pinConf.getNumber(), seq, 15);
+			buffer.putInt((int) pinConf.getCycleDuration());
+			buffer.put(percent(pinConf.getStartVal()));
+			buffer.put(percent(pinConf.getEndVal()));
+			buffer.put(flag(pinConf.isRepeat()));
+			buffer.putInt(pinConf.getCycles());
+			buffer.putInt((int) pinConf.getCyclePause());
+			break;
+		case BLINK:
+			buffer = header(BLINK, pinConf.getNumber(), seq, 14);
+			buffer.putInt((int) pinConf.getUptime());
+			buffer.putInt((int) pinConf.getDowntime());
+			buffer.put(percent(pinConf.getPwmValue()));
+			buffer.put(flag(pinConf.isRepeat()));
+			buffer.putInt(pinConf.getCycles());
+			break;
+		case SHUTDOWN:
+			buffer = header(SHUTDOWN, pinConf.getNumber(), seq, 0);
+			break;
+		case REBOOT:
+			buffer = header(REBOOT, pinConf.getNumber(), seq, 0);
+			break;
+		default:
+			throw new IllegalArgumentException("Event " + pinConf.getEvent() + " is no command");
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * @return the binary record of the level of an input pin
+	 */
+	public static byte[] encode(PinInput pinInput) {
+		ByteBuffer buffer = header(INPUT, pinInput.getNumber(), 0, 9);
+		buffer.put(flag(pinInput.getIsHigh()));
+		buffer.putLong(pinInput.getTimeSinceLastChange());
+		return buffer.array();
+	}
+
+	/**
+	 * @return the binary record of the reading of a temperature sensor
+	 */
+	public static byte[] encode(Temperature temperature) {
+		byte[] deviceId = bytes(temperature.getDeviceId());
+		byte[] name = bytes(temperature.getName());
+		ByteBuffer buffer = header(TEMP, -1, 0, 14 + deviceId.length + name.length);
+		buffer.putInt(temperature.getTemperature());
+		buffer.putLong(temperature.getTimeStamp());
+		putString(buffer, deviceId);
+		putString(buffer, name);
+		return buffer.array();
+	}
+
+	/**
+	 * @return the binary record which requests the readings of the given sensors, at most 255
+	 */
+	public static byte[] encodeTemperatureRequest(Collection<String> deviceIds) {
+		if (deviceIds.size() > 0xFF) {
+			throw new IllegalArgumentException("Too many sensors for one request: " + deviceIds.size());
+		}
+		List<byte[]> ids = new ArrayList<>(deviceIds.size());
+		int size = 1;
+		for (String deviceId : deviceIds) {
+			byte[] id = bytes(deviceId);
+			ids.add(id);
+			size += 1 + id.length;
+		}
+		ByteBuffer buffer = header(TEMP, -1, 0, size);
+		buffer.put((byte) ids.size());
+		for (byte[] id : ids) {
+			putString(buffer, id);
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * @return the binary record which acknowledges the command with the given sequence id
+	 */
+	public static byte[] encodeAck(int seq) {
+		ByteBuffer buffer = header(ACK, -1, 0, 4);
+		buffer.putInt(seq);
+		return buffer.array();
+	}
+
+	/**
+	 * @return the event of the next record in the buffer, without consuming it
+	 * @throws IllegalArgumentException if the event code is unknown
+	 * @throws BufferUnderflowException if the buffer has no complete header
+	 */
+	public static Event peekEvent(ByteBuffer buffer) {
+		if (buffer.remaining() < HEADER_SIZE) {
+			throw new BufferUnderflowException();
+		}
+		switch (buffer.get(buffer.position()) & ~SEQ_FLAG & 0xFF) {
+		case SET:
+			return Event.SET;
+		case DIM:
+			return Event.DIM;
+		case FADE:
+			return Event.FADE;
+		case FADE_UP_DOWN:
+			return Event.FADE_UP_DOWN;
+		case BLINK:
+			return Event.BLINK;
+		case INPUT:
+			return Event.INPUT;
+		case TEMP:
+			return Event.TEMP;
+		case SHUTDOWN:
+			return Event.SHUTDOWN;
+		case REBOOT:
+			return Event.REBOOT;
+		case ACK:
+			return Event.ACK;
+		default:
+			throw new IllegalArgumentException("Unknown event code " + buffer.get(buffer.position()));
+		}
+	}
+
+	/**
+	 * Reads the next record, which must be a command, and advances the buffer behind it.
+	 */
+	public static PinConfiguration decodePinConfiguration(ByteBuffer buffer) {
+		Event event = peekEvent(buffer);
+		boolean hasSeq = (buffer.get(buffer.position()) & SEQ_FLAG) != 0;
+		PinConfiguration pinConf = new PinConfiguration(readHeader(buffer));
+		pinConf.setEvent(event);
+		if (hasSeq) {
+			pinConf.setSeq(buffer.getInt());
+		}
+		switch (event) {
+		case SET:
+			pinConf.setOutputHigh(readFlag(buffer));
+			break;
+		case DIM:
+			pinConf.setPwmValue(buffer.get() & 0xFF);
+			break;
+		case FADE:
+		case FADE_UP_DOWN:
+			pinConf.setCycleDuration(buffer.getInt());
+			pinConf.setStartVal(buffer.get() & 0xFF);
+			pinConf.setEndVal(buffer.get() & 0xFF);
+			pinConf.setRepeat(readFlag(buffer));
+			pinConf.setCycles(buffer.getInt());
+			pinConf.setCyclePause(buffer.getInt());
+			break;
+		case BLINK:
+			pinConf.setUptime(buffer.getInt());
+			pinConf.setDowntime(buffer.getInt());
+			pinConf.setPwmValue(buffer.get() & 0xFF);
+			pinConf.setRepeat(readFlag(buffer));
+			pinConf.setCycles(buffer.getInt());
+			break;
+		case SHUTDOWN:
+		case REBOOT:
+			break;
+		default:
+			throw new IllegalArgumentException("Event " + event + " is no command");
+		}
+		return pinConf;
+	}
+
+	/**
+	 * Reads the next record, which must be an INPUT, into the given object and advances the buffer behind it.
+	 */
+	public static PinInput decodePinInput(ByteBuffer buffer, PinInput pinInput) {
+		if (peekEvent(buffer) != Event.INPUT) {
+			throw new IllegalArgumentException("Record is no INPUT");
+		}
+		pinInput.setNumber(readHeader(buffer));
+		pinInput.setIsHigh(readFlag(buffer));
+		pinInput.setTimeSinceLastChange(buffer.getLong());
+		return pinInput;
+	}
+
+	/**
+	 * Reads the next record, which must be a TEMP, into the given object and advances the buffer behind it.
+	 */
+	public static Temperature decodeTemperature(ByteBuffer buffer, Temperature temperature) {
+		if (peekEvent(buffer) != Event.TEMP) {
+			throw new IllegalArgumentException("Record is no TEMP");
+		}
+		readHeader(buffer);
+		temperature.setTemperature(buffer.getInt());
+		temperature.setTimeStamp(buffer.getLong());
+		temperature.setDeviceId(readString(buffer));
+		temperature.setName(readString(buffer));
+		return temperature;
+	}
+
+	/**
+	 * Reads the next record, which must be a TEMP request of the binding, and advances the buffer behind it.
+	 *
+	 * @return the device ids of the requested sensors
+	 */
+	public static List<String> decodeTemperatureRequest(ByteBuffer buffer) {
+		if (peekEvent(buffer) != Event.TEMP) {
+			throw new IllegalArgumentException("Record is no TEMP");
+		}
+		readHeader(buffer);
+		int count = buffer.get() & 0xFF;
+		List<String> deviceIds = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			deviceIds.add(readString(buffer));
+		}
+		return deviceIds;
+	}
+
+	/**
+	 * Reads the next record, which must be an ACK, and advances the buffer behind it.
+	 *
+	 * @return the sequence id of the acknowledged command
+	 */
+	public static int decodeAck(ByteBuffer buffer) {
+		if (peekEvent(buffer) != Event.ACK) {
+			throw new IllegalArgumentException("Record is no ACK");
+		}
+		readHeader(buffer);
+		return buffer.getInt();
+	}
+
+	/**
+	 * @param pinNumber 0-254, or less than 0 for none
+	 * @param seq the sequence id written after the header, 0 for none
+	 */
+	private static ByteBuffer header(byte eventCode, int pinNumber, int seq, int valueSize) {
+		if (pinNumber >= NO_PIN) {
+			throw new IllegalArgumentException("Pin number too large for the binary protocol: " + pinNumber);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (seq != 0 ? 4 : 0) + valueSize);
+		buffer.put(seq != 0 ? (byte) (eventCode | SEQ_FLAG) : eventCode);
+		buffer.put((byte) (pinNumber < 0 ? NO_PIN : pinNumber));
+		if (seq != 0) {
+			buffer.putInt(seq);
+		}
+		return buffer;
+	}
+
+	/** @return the pin number of the header, -1 if none */
+	private static int readHeader(ByteBuffer buffer) {
+		buffer.get();
+		int pinNumber = buffer.get() & 0xFF;
+		return pinNumber == NO_PIN ? -1 : pinNumber;
+	}
+
+	/** @return the PWM value limited to 0-100 */
+	private static byte percent(int value) {
+		return (byte) Math.max(0, Math.min(100, value));
+	}
+
+	private static byte flag(boolean value) {
+		return value ? (byte) 1 : (byte) 0;
+	}
+
+	private static boolean readFlag(ByteBuffer buffer) {
+		return (buffer.get() & 1) != 0;
+	}
+
+	private static byte[] bytes(String value) {
+		if (value == null) {
+			return new byte[0];
+		}
+		return value.getBytes(UTF8);
+	}
+
+	/** Writes the length and the bytes of a string, at most 255 bytes */
+	private static void putString(ByteBuffer buffer, byte[] bytes) {
+		if (bytes.length > 0xFF) {
+			throw new IllegalArgumentException("String too long for the binary protocol: " + bytes.length + " bytes");
+		}
+		buffer.put((byte) bytes.length).put(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.get() & 0xFF];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+}
@@ -1,5 +1,5 @@
 package home.control.model;
 
 public enum Event {
-    SET, DIM, FADE, FADE_UP_DOWN, BLINK, INPUT, TEMP, SHUTDOWN, REBOOT
+    SET, DIM, FADE, FADE_UP_DOWN, BLINK, INPUT, TEMP, SHUTDOWN, REBOOT, ACK
 }
@@ -1,17 +1,38 @@
 package home.control.model;
 
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.openhab.core.binding.BindingConfig;
 
 public class HostAndTempAndPinConfiguration implements BindingConfig {
 	
 	private String HostWithPort;
+	private URI hostUri;
 	public Temperature temperature = new Temperature();
 	public PinConfiguration pinConfiguration = new PinConfiguration();
 	public PinInput pinInput = new PinInput();
 	public ConfigMode configMode;
 	
+	/** Temperature changes smaller than this (in 1/1000 °C) are not published. Option <code>deadband</code> in °C. */
+	public int temperatureDeadband;
+	/** Minimum time in ms between two published temperatures. Option <code>minInterval</code>. */
+	public long temperatureMinInterval;
+	/** How the temperatures of a window are combined. Option <code>aggregate</code>. */
+	public Aggregation temperatureAggregation = Aggregation.NONE;
+	/** Length of the aggregation window in ms. Option <code>window</code>. */
+	public long temperatureWindow;
+	
+	/** Targets of a scene item: host -> pin number -> PWM value 0-100 when the scene is ON, in the order of the config */
+	public Map<URI, Map<Integer, Integer>> sceneTargets = new LinkedHashMap<>();
+	
 	static public enum ConfigMode {
-		OUTPUT, INPUT, TEMPERATURE
+		OUTPUT, INPUT, TEMPERATURE, SCENE
+	}
+	
+	static public enum Aggregation {
+		NONE, MIN, MAX, AVG
 	}
 
 	public String getHostWithPort() {
@@ -21,4 +42,15 @@ public class HostAndTempAndPinConfiguration implements BindingConfig {
 	public void setHostWithPort(String hostWithPort) {
 		HostWithPort = hostWithPort;
 	}
+
+	/**
+	 * @return the WebSocket URI of the host, built once when the binding config is parsed
+	 */
+	public URI getHostUri() {
+		return hostUri;
+	}
+
+	public void setHostUri(URI hostUri) {
+		this.hostUri = hostUri;
+	}
 }
@@ -16,6 +16,7 @@ public class PinConfiguration{
     private boolean repeat;
     private int cycles;
     private long cyclePause;
+    private int seq;
     
 
     public PinConfiguration() {
@@ -66,8 +67,8 @@ public class PinConfiguration{
         this.event = event;
         this.number = number;
         this.cycleDuration = cycleDuration;
-        this.startVal = startVal;
-        this.endVal = endVal;
+        setStartVal(startVal);
+        setEndVal(endVal);
         this.repeat = repeat;
         this.cycles = cycles;
         this.cyclePause = cyclePause;
@@ -219,4 +220,15 @@ public class PinConfiguration{
     public void setCyclePause(long cyclePause) {
         this.cyclePause = cyclePause;
     }
+
+    /**
+     * @return the sequence id the server acknowledges the command with, 0 if the command is not acknowledged
+     */
+    public int getSeq() {
+        return seq;
+    }
+
+    public void setSeq(int seq) {
+        this.seq = seq;
+    }
 }
@@ -9,9 +9,8 @@
 package org.openhab.binding.gpioremotecontrol;
 
 import java.net.URI;
-import java.util.TreeMap;
+import java.util.Collection;
 
-import org.openhab.binding.gpioremotecontrol.internal.Client;
 import org.openhab.core.binding.BindingProvider;
 import home.control.model.*;
 
@@ -22,6 +21,29 @@ import home.control.model.*;
 public interface GpioRemoteControlBindingProvider extends BindingProvider {
 	
 	public HostAndTempAndPinConfiguration getConfig(String itemName);
-	public TreeMap<URI, Client> getClientMap();
+	
+	/**
+	 * Looks up the item bound to the given pin of the given host.
+	 * 
+	 * @param hostUri the WebSocket URI of the host
+	 * @param pinNumber the pin number
+	 * @return the item name or <code>null</code> if no item is bound to the pin
+	 */
+	public String getItemNameByPinNumber(URI hostUri, int pinNumber);
+	
+	/**
+	 * Looks up the item bound to the given temperature sensor of the given host.
+	 * 
+	 * @param hostUri the WebSocket URI of the host
+	 * @param deviceId the 1-Wire device id of the sensor
+	 * @return the item name or <code>null</code> if no item is bound to the sensor
+	 */
+	public String getItemNameByTemperatureDeviceId(URI hostUri, String deviceId);
+	
+	/**
+	 * @param hostUri the WebSocket URI of the host
+	 * @return the 1-Wire device ids of the temperature sensors of the host which are bound to items
+	 */
+	public Collection<String> getTemperatureDeviceIds(URI hostUri);
 	
 }
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.PinConfiguration;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the commands sent to hosts which acknowledge them. Each command gets a sequence
+ * id before it is sent, the host answers with an ACK frame carrying the same id.
+ * <p>
+ * A command which is not acknowledged within the timeout is sent again with the same id,
+ * at most <code>maxRetries</code> times. A newer command to the same pin supersedes it:
+ * its ACK is still expected, but it is not sent again, which would undo the newer command.
+ * The round trip is measured from the first send, so it includes the retries.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class AckTracker {
+
+	interface Listener {
+		/** Sends the command again, it keeps its sequence id */
+		void resend(URI hostUri, PinConfiguration pinConf);
+
+		void acknowledged(URI hostUri, PinConfiguration pinConf, long roundTripNanos);
+
+		/** Called when the last retry was not acknowledged either */
+		void timedOut(URI hostUri, PinConfiguration pinConf);
+	}
+
+	private static class InFlight {
+		final URI hostUri;
+		final PinConfiguration pinConf;
+		final long firstSent = System.nanoTime();
+		int attempts = 1;
+		boolean superseded;
+		ScheduledFuture<?> timeout;
+
+		InFlight(URI hostUri, PinConfiguration pinConf) {
+			this.hostUri = hostUri;
+			this.pinConf = pinConf;
+		}
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final long timeoutMillis;
+	private final int maxRetries;
+	private final Listener listener;
+
+	private final AtomicInteger lastSeq = new AtomicInteger();
+
+	/** All commands waiting for their ACK, guarded by this */
+	private final Map<Integer, InFlight> inFlight = new HashMap<>();
+	/** The same commands by host, in the order they were sent, guarded by this */
+	private final Map<URI, Map<Integer, InFlight>> inFlightByHost = new HashMap<>();
+
+	/**
+	 * @param scheduler runs the timeouts
+	 * @param timeoutMillis the time in ms an ACK may take before the command is sent again
+	 * @param maxRetries how often a command is sent again
+	 * @param listener sends the retries and is told about the outcome of every command
+	 */
+	AckTracker(ScheduledExecutorService scheduler, long timeoutMillis, int maxRetries, Listener listener) {
+		this.scheduler = scheduler;
+		this.timeoutMillis = timeoutMillis;
+		this.maxRetries = maxRetries;
+		this.listener = listener;
+	}
+
+	/**
+	 * Gives the command a sequence id and starts waiting for its ACK. Has to be called before
+	 * the command is sent, else the ACK may arrive first.
+	 */
+	synchronized void track(URI hostUri, PinConfiguration pinConf) {
+		int seq = nextSeq();
+		pinConf.setSeq(seq);
+		Map<Integer, InFlight> hostInFlight = inFlightByHost.get(hostUri);
+		if (hostInFlight == null) {
+			hostInFlight = new LinkedHashMap<>();
+			inFlightByHost.put(hostUri, hostInFlight);
+		}
+		for (InFlight older : hostInFlight.values()) {
+			if (older.pinConf.getNumber() == pinConf.getNumber()) {
+				older.superseded = true;
+			}
+		}
+		InFlight command = new InFlight(hostUri, pinConf);
+		inFlight.put(seq, command);
+		hostInFlight.put(seq, command);
+		scheduleTimeout(seq, command);
+	}
+
+	/**
+	 * Ends the wait for the command with the given sequence id.
+	 *
+	 * @return <code>false</code> if no command of the host waits for this id, e.g. because it timed out
+	 */
+	boolean acknowledged(URI hostUri, int seq) {
+		InFlight command;
+		synchronized (this) {
+			command = inFlight.get(seq);
+			if (command == null || !command.hostUri.equals(hostUri)) {
+				return false;
+			}
+			remove(seq, command);
+		}
+		listener.acknowledged(hostUri, command.pinConf, System.nanoTime() - command.firstSent);
+		return true;
+	}
+
+	/**
+	 * @return the number of commands sent to the host and not acknowledged yet
+	 */
+	synchronized int getInFlight(URI hostUri) {
+		Map<Integer, InFlight> hostInFlight = inFlightByHost.get(hostUri);
+		return hostInFlight == null ? 0 : hostInFlight.size();
+	}
+
+	/**
+	 * Stops waiting for the ACKs of the host, e.g. because it is not used anymore.
+	 */
+	synchronized void remove(URI hostUri) {
+		Map<Integer, InFlight> hostInFlight = inFlightByHost.remove(hostUri);
+		if (hostInFlight != null) {
+			for (Iterator<Map.Entry<Integer, InFlight>> it = hostInFlight.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Integer, InFlight> entry = it.next();
+				entry.getValue().timeout.cancel(false);
+				inFlight.remove(entry.getKey());
+			}
+		}
+	}
+
+	private void timeout(int seq) {
+		InFlight command;
+		boolean retry;
+		synchronized (this) {
+			command = inFlight.get(seq);
+			if (command == null) {
+				return; //Acknowledged meanwhile
+			}
+			if (command.superseded) {
+				remove(seq, command); //Lost, but a newer command of the pin is on its way
+				return;
+			}
+			retry = command.attempts <= maxRetries;
+			if (retry) {
+				command.attempts++;
+				scheduleTimeout(seq, command);
+			} else {
+				remove(seq, command);
+			}
+		}
+		if (retry) {
+			listener.resend(command.hostUri, command.pinConf);
+		} else {
+			listener.timedOut(command.hostUri, command.pinConf);
+		}
+	}
+
+	private void scheduleTimeout(final int seq, InFlight command) {
+		command.timeout = scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				timeout(seq);
+			}
+		}, timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void remove(int seq, InFlight command) {
+		command.timeout.cancel(false);
+		inFlight.remove(seq);
+		Map<Integer, InFlight> hostInFlight = inFlightByHost.get(command.hostUri);
+		if (hostInFlight != null) {
+			hostInFlight.remove(seq);
+			if (hostInFlight.isEmpty()) {
+				inFlightByHost.remove(command.hostUri);
+			}
+		}
+	}
+
+	/** @return the next sequence id, always positive, 0 means none */
+	private int nextSeq() {
+		int seq;
+		do {
+			seq = lastSeq.incrementAndGet() & Integer.MAX_VALUE;
+		} while (seq == 0 || inFlight.containsKey(seq));
+		return seq;
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HostMetrics} of all hosts. While started, each of them is registered as MBean
+ * <code>org.openhab.binding.gpioremotecontrol:type=Host,name="host:port"</code>
+ * at the platform MBean server.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class BindingMetrics {
+
+	private static final Logger logger = LoggerFactory.getLogger(BindingMetrics.class);
+
+	private static final String DOMAIN = "org.openhab.binding.gpioremotecontrol";
+
+	private final HostMetrics.Source source;
+	private final ConcurrentMap<URI, HostMetrics> metrics = new ConcurrentHashMap<>();
+	private volatile MBeanServer mBeanServer;
+
+	BindingMetrics(HostMetrics.Source source) {
+		this.source = source;
+	}
+
+	/**
+	 * Registers the MBeans of the known hosts and of all hosts added later.
+	 */
+	synchronized void start() {
+		mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		for (HostMetrics hostMetrics : metrics.values()) {
+			register(hostMetrics);
+		}
+	}
+
+	/**
+	 * Unregisters all MBeans. The metrics are kept.
+	 */
+	synchronized void stop() {
+		for (HostMetrics hostMetrics : metrics.values()) {
+			unregister(hostMetrics);
+		}
+		mBeanServer = null;
+	}
+
+	/**
+	 * @return the metrics of the host, created and registered if the host is new
+	 */
+	synchronized HostMetrics add(URI hostUri) {
+		HostMetrics hostMetrics = metrics.get(hostUri);
+		if (hostMetrics == null) {
+			hostMetrics = new HostMetrics(hostUri, source);
+			metrics.put(hostUri, hostMetrics);
+			register(hostMetrics);
+		}
+		return hostMetrics;
+	}
+
+	/**
+	 * @return the metrics of the host, <code>null</code> if it was not added or is removed
+	 */
+	HostMetrics get(URI hostUri) {
+		return metrics.get(hostUri);
+	}
+
+	/** Forgets a host which is not used anymore and unregisters its MBean. */
+	synchronized void remove(URI hostUri) {
+		HostMetrics hostMetrics = metrics.remove(hostUri);
+		if (hostMetrics != null) {
+			unregister(hostMetrics);
+		}
+	}
+
+	private void register(HostMetrics hostMetrics) {
+		MBeanServer server = mBeanServer;
+		if (server == null) {
+			return;
+		}
+		try {
+			ObjectName name = getObjectName(hostMetrics);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(hostMetrics, name);
+			}
+		} catch (JMException e) {
+			logger.warn("GpioRemoteControl: Registering metrics of {} failed: {}", hostMetrics.getHost(), e.toString());
+		}
+	}
+
+	private void unregister(HostMetrics hostMetrics) {
+		MBeanServer server = mBeanServer;
+		if (server == null) {
+			return;
+		}
+		try {
+			ObjectName name = getObjectName(hostMetrics);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			logger.warn("GpioRemoteControl: Unregistering metrics of {} failed: {}", hostMetrics.getHost(), e.toString());
+		}
+	}
+
+	private ObjectName getObjectName(HostMetrics hostMetrics) throws JMException {
+		return new ObjectName(DOMAIN + ":type=Host,name=" + ObjectName.quote(hostMetrics.getHostUri().getAuthority()));
+	}
+}
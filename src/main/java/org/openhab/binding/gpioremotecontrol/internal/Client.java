@@ -1,39 +1,77 @@
 package org.openhab.binding.gpioremotecontrol.internal;
 
-import java.net.URI;
+import java.nio.ByteBuffer;
 
 import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
 import org.java_websocket.client.WebSocketClient;
-import org.java_websocket.drafts.Draft;
+import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ServerHandshake;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class Client extends WebSocketClient {
+public class Client extends WebSocketClient implements HostClient {
+
+	private static final Logger logger = LoggerFactory.getLogger(Client.class);
 
 	GpioRemoteControlBinding gpioRemoteControlBinding;
-	
-    public Client(URI serverURI, GpioRemoteControlBinding gpioRemoteControlBinding) {
-        super(serverURI);
-        this.gpioRemoteControlBinding = gpioRemoteControlBinding;
-    }
-    
-    @Override
-    public void onOpen(ServerHandshake handshakedata) {
-        System.out.println("new connection opened");
-    }
-
-    @Override
-    public void onClose(int code, String reason, boolean remote) {
-        System.out.println("closed with exit code " + code + " additional info: " + reason);
-    }
-
-    @Override
-    public void onMessage(String message) {
-        System.out.println("received message: " + message);  
-        gpioRemoteControlBinding.receiveServerMessage(message);
-    }
-
-    @Override
-    public void onError(Exception ex) {
-        System.err.println("an error occured:" + ex);
-    }
-}
\ No newline at end of file
+	HostConnection hostConnection;
+
+	public Client(HostConnection hostConnection, GpioRemoteControlBinding gpioRemoteControlBinding) {
+		super(hostConnection.getHostUri());
+		this.gpioRemoteControlBinding = gpioRemoteControlBinding;
+		this.hostConnection = hostConnection;
+	}
+
+	@Override
+	public void onOpen(ServerHandshake handshakedata) {
+		logger.debug("GpioRemoteControl: new connection opened: {}", getURI());
+		gpioRemoteControlBinding.connectionOpened(hostConnection, this);
+	}
+
+	@Override
+	public void onClose(int code, String reason, boolean remote) {
+		logger.debug("GpioRemoteControl: connection {} closed with exit code {} additional info: {}", getURI(), code, reason);
+		gpioRemoteControlBinding.connectionLost(hostConnection, this);
+	}
+
+	@Override
+	public void onMessage(String message) {
+		logger.trace("GpioRemoteControl: received message of {}: {}", getURI(), message);
+		hostConnection.heard(this);
+		gpioRemoteControlBinding.frameReceived(getURI(), message); //Only buffered here, handled by the dispatcher thread
+	}
+
+	@Override
+	public void onMessage(ByteBuffer message) {
+		logger.trace("GpioRemoteControl: received binary message of {}: {} bytes", getURI(), message.remaining());
+		hostConnection.heard(this);
+		byte[] bytes = new byte[message.remaining()]; //The buffer is reused by the reader thread
+		message.get(bytes);
+		gpioRemoteControlBinding.frameReceived(getURI(), bytes);
+	}
+
+	@Override
+	public void onError(Exception ex) {
+		logger.debug("GpioRemoteControl: an error occured on connection {}: {}", getURI(), ex.toString());
+		if (getReadyState() != WebSocket.READY_STATE_OPEN) { //Failed connects only call onError, not onClose
+			gpioRemoteControlBinding.connectionLost(hostConnection, this);
+		}
+	}
+
+	@Override
+	public void onWebsocketPong(WebSocket conn, Framedata pong) {
+		hostConnection.heard(this);
+		gpioRemoteControlBinding.pongReceived(hostConnection, HeartbeatMonitor.getPingTime(pong));
+	}
+
+	@Override
+	public void ping(long nanos) {
+		getConnection().sendFrame(HeartbeatMonitor.createPing(nanos));
+	}
+
+	@Override
+	public void abort() {
+		((WebSocketImpl) getConnection()).eot(); //Calls onClose, the reader thread closes the channel
+	}
+}
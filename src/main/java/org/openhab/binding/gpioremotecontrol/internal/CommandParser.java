@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openhab.binding.gpioremotecontrol.internal.ParsedCommand.Type;
+import org.openhab.core.library.types.IncreaseDecreaseType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.types.Command;
+
+/**
+ * Parses the commands of output items into {@link ParsedCommand}s. Sitemaps send the
+ * same few command strings over and over, so the results (also the invalid ones) are
+ * kept in a bounded LRU cache and every distinct string is parsed only once.
+ * <p>
+ * Supported commands (case insensitive): ON, OFF, TOGGLE, INCREASE, DECREASE,
+ * a PWM value, dim_VALUE, fade_..., fadeUpDown_... and blink_..., see README.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class CommandParser {
+
+	private final Map<String, ParsedCommand> cache;
+
+	/**
+	 * @param cacheSize the maximum number of distinct command strings kept in the cache
+	 */
+	CommandParser(final int cacheSize) {
+		cache = new LinkedHashMap<String, ParsedCommand>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ParsedCommand> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * @return the parsed command, {@link ParsedCommand#INVALID} if it is not understood
+	 */
+	ParsedCommand parse(Command command) {
+		if (command == OnOffType.ON) {
+			return ParsedCommand.ON;
+		} else if (command == OnOffType.OFF) {
+			return ParsedCommand.OFF;
+		} else if (command == IncreaseDecreaseType.INCREASE) {
+			return ParsedCommand.INCREASE;
+		} else if (command == IncreaseDecreaseType.DECREASE) {
+			return ParsedCommand.DECREASE;
+		}
+
+		String commandString = command.toString();
+		synchronized (cache) {
+			ParsedCommand parsed = cache.get(commandString);
+			if (parsed == null) {
+				parsed = parse(commandString);
+				cache.put(commandString, parsed);
+			}
+			return parsed;
+		}
+	}
+
+	private ParsedCommand parse(String commandString) {
+		String lowerCase = commandString.toLowerCase();
+		try {
+			if (lowerCase.equals("on")) {
+				return ParsedCommand.ON;
+			} else if (lowerCase.equals("off")) {
+				return ParsedCommand.OFF;
+			} else if (lowerCase.equals("toggle")) {
+				return ParsedCommand.TOGGLE;
+			} else if (lowerCase.equals("increase")) {
+				return ParsedCommand.INCREASE;
+			} else if (lowerCase.equals("decrease")) {
+				return ParsedCommand.DECREASE;
+			} else if (lowerCase.contains("dim_")) {
+				String[] split = commandString.split("_");
+				//Should be: 0:dim;1:pwmValue
+				return ParsedCommand.dim(Integer.parseInt(split[1]));
+			} else if (lowerCase.contains("fade_")) {
+				return parseFade(Type.FADE, commandString);
+			} else if (lowerCase.contains("fadeupdown_")) {
+				return parseFade(Type.FADE_UP_DOWN, commandString);
+			} else if (lowerCase.contains("blink_")) {
+				return parseBlink(commandString);
+			} else {
+				//parseable as Integer?
+				return ParsedCommand.dim(Integer.parseUnsignedInt(commandString));
+			}
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+			return ParsedCommand.INVALID;
+		}
+	}
+
+	private ParsedCommand parseFade(Type type, String commandString) {
+		String[] split = commandString.split("_");
+		//Should be: 0:fade;1:cycleDuration;2:startVal;3:endVal;4:repeat;5:cycles;6:cyclePause
+		if (split.length == 4) { //Short version: If only cycleDuration and start- and EndValue given
+			return ParsedCommand.fade(type, Integer.parseInt(split[1]), Integer.parseInt(split[2]), Integer.parseInt(split[3]),
+					false, 0, 0); //default values for no loop
+		} else {
+			return ParsedCommand.fade(type, Integer.parseInt(split[1]), Integer.parseInt(split[2]), Integer.parseInt(split[3]),
+					Boolean.parseBoolean(split[4]), Integer.parseInt(split[5]), Integer.parseInt(split[6]));
+		}
+	}
+
+	private ParsedCommand parseBlink(String commandString) {
+		String[] split = commandString.split("_");
+		//Should be: 0:blink;1:uptime;2:downtime;3:pwmValue;4:repeat;5:cycles
+		if (split.length == 2) { //Short version: Only uptime - one flash to 100%.
+			return ParsedCommand.blink(Integer.parseInt(split[1]), 1, 100, false, 0); //default values for no loop
+		} else {
+			return ParsedCommand.blink(Integer.parseInt(split[1]), Integer.parseInt(split[2]), Integer.parseInt(split[3]),
+					Boolean.parseBoolean(split[4]), Integer.parseInt(split[5]));
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Limits the number of handshakes in flight. After a start all hosts connect at once, up to
+ * the limit, the others wait in order and start as soon as a handshake is done. So a start
+ * with many hosts takes about as long as the slowest handshakes, without opening hundreds of
+ * sockets in the same moment. Reconnects go through the gate, too.
+ * <p>
+ * A handshake is done when its connection opened or failed, see {@link #done(URI)}. This is
+ * reported by the threads of the clients, which may be selector threads. So the next host is
+ * connected on the executor, its name lookup must not block a selector thread.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class ConnectGate {
+
+	interface Connector {
+		/** Creates a new client for the host and connects it */
+		void connect(HostConnection connection);
+	}
+
+	private final int limit;
+	private final Executor executor;
+	private final Connector connector;
+
+	/** Hosts whose handshake is in flight, guarded by this */
+	private final Set<URI> inFlight = new HashSet<>();
+	/** Hosts waiting for a free slot, in order, guarded by this */
+	private final Map<URI, HostConnection> waiting = new LinkedHashMap<>();
+
+	/**
+	 * @param limit the number of handshakes in flight at the same time, at least 1
+	 * @param executor connects the waiting hosts
+	 * @param connector connects the hosts
+	 */
+	ConnectGate(int limit, Executor executor, Connector connector) {
+		this.limit = Math.max(1, limit);
+		this.executor = executor;
+		this.connector = connector;
+	}
+
+	/**
+	 * Connects the host now, if a slot is free, otherwise when it is its turn.
+	 * Hosts which are already connecting or waiting are ignored.
+	 */
+	void submit(HostConnection connection) {
+		URI hostUri = connection.getHostUri();
+		synchronized (this) {
+			if (inFlight.contains(hostUri) || waiting.containsKey(hostUri)) {
+				return;
+			}
+			if (inFlight.size() >= limit) {
+				waiting.put(hostUri, connection);
+				return;
+			}
+			inFlight.add(hostUri);
+		}
+		connector.connect(connection);
+	}
+
+	/**
+	 * The handshake of the host is done, opened or failed. Starts the next waiting host.
+	 */
+	void done(URI hostUri) {
+		final HostConnection next;
+		synchronized (this) {
+			if (!inFlight.remove(hostUri) || waiting.isEmpty()) {
+				return;
+			}
+			Iterator<HostConnection> oldest = waiting.values().iterator();
+			next = oldest.next();
+			oldest.remove();
+			inFlight.add(next.getHostUri());
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					connector.connect(next);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			//The binding was deactivated
+		}
+	}
+
+	/**
+	 * Forgets the host, e.g. because no item uses it anymore.
+	 */
+	void remove(URI hostUri) {
+		synchronized (this) {
+			waiting.remove(hostUri);
+		}
+		done(hostUri);
+	}
+
+	synchronized int getInFlight() {
+		return inFlight.size();
+	}
+
+	synchronized int getWaiting() {
+		return waiting.size();
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread safe registry of the {@link HostConnection}s, one per host URI. There is one
+ * registry for the whole binding, shared by all providers, so a host has one connection
+ * however many providers and items use it. The items using a host are counted: the first
+ * item registers the host, which the binding then connects.
+ * A host whose last item is gone stays registered until {@link #removeUnused()}, so items
+ * which are removed and added again, like on a reload of an items file, keep their connection.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public class ConnectionRegistry {
+
+	private static final ConnectionRegistry INSTANCE = new ConnectionRegistry();
+
+	private final ConcurrentMap<URI, HostConnection> connections = new ConcurrentHashMap<>();
+
+	/** host -> number of items using it, guarded by this */
+	private final Map<URI, Integer> references = new HashMap<>();
+
+	/**
+	 * @return the registry of the binding and all its providers
+	 */
+	static ConnectionRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the connection to the host or <code>null</code> if the host is not registered
+	 */
+	public HostConnection get(URI hostUri) {
+		return connections.get(hostUri);
+	}
+
+	/**
+	 * Counts one more item using the host.
+	 *
+	 * @return the connection to the host, a new one in state NEW if the host was not registered yet
+	 */
+	public synchronized HostConnection acquire(URI hostUri) {
+		Integer count = references.get(hostUri);
+		references.put(hostUri, count == null ? 1 : count + 1);
+		HostConnection connection = connections.get(hostUri);
+		if (connection == null) {
+			connection = new HostConnection(hostUri);
+			connections.put(hostUri, connection);
+		}
+		return connection;
+	}
+
+	/**
+	 * Counts one item less using the host. A host without items is removed by {@link #removeUnused()}.
+	 */
+	public synchronized void release(URI hostUri) {
+		Integer count = references.get(hostUri);
+		if (count == null) {
+			return;
+		}
+		if (count > 1) {
+			references.put(hostUri, count - 1);
+		} else {
+			references.remove(hostUri);
+		}
+	}
+
+	/**
+	 * @return the number of items using the host
+	 */
+	public synchronized int getReferences(URI hostUri) {
+		Integer count = references.get(hostUri);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Removes the hosts without items and closes their connections.
+	 *
+	 * @return the removed hosts
+	 */
+	public synchronized List<URI> removeUnused() {
+		if (references.size() == connections.size()) {
+			return new ArrayList<>(0); //Every registered host is used
+		}
+		List<URI> removed = new ArrayList<>();
+		for (URI hostUri : connections.keySet()) {
+			if (!references.containsKey(hostUri)) {
+				removed.add(hostUri);
+			}
+		}
+		for (URI hostUri : removed) {
+			connections.remove(hostUri).close();
+		}
+		return removed;
+	}
+
+	/**
+	 * @return a weakly consistent, live view of all connections
+	 */
+	public Collection<HostConnection> getConnections() {
+		return connections.values();
+	}
+}
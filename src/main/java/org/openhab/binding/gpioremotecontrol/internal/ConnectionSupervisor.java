@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reconnects lost connections. It is driven by the callbacks of the {@link HostClient}s,
+ * the state of a host is kept by its {@link HostConnection}.
+ * <p>
+ * The first reconnect after a failure happens at once. Every further failure in a row
+ * doubles the delay, up to a maximum. Connections which close again right after they
+ * were opened count as failures in a row, too. The delays are jittered, so hosts which
+ * went down together don't reconnect in lockstep.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class ConnectionSupervisor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConnectionSupervisor.class);
+
+	interface Connector {
+		/** Creates a new client for the host and connects it */
+		void connect(HostConnection connection);
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final long reconnectDelay;
+	private final long maxReconnectDelay;
+	private final long connectTimeout;
+	private final Connector connector;
+
+	/**
+	 * @param scheduler runs the delayed reconnects
+	 * @param reconnectDelay delay in ms before the second reconnect in a row, doubled for every further one
+	 * @param maxReconnectDelay the upper limit of the delay in ms
+	 * @param connectTimeout time in ms after which a connection which is not open yet counts as failed
+	 * @param connector creates and connects the clients
+	 */
+	ConnectionSupervisor(ScheduledExecutorService scheduler, long reconnectDelay, long maxReconnectDelay,
+			long connectTimeout, Connector connector) {
+		this.scheduler = scheduler;
+		this.reconnectDelay = reconnectDelay;
+		this.maxReconnectDelay = maxReconnectDelay;
+		this.connectTimeout = connectTimeout;
+		this.connector = connector;
+	}
+
+	/**
+	 * The connection of the client was closed or could not be opened. Marks it as waiting for
+	 * the reconnect, if the client is still the current one and no reconnect is pending yet.
+	 * 
+	 * @return <code>false</code> if the client was replaced already or a reconnect is already pending,
+	 *         otherwise the caller must call {@link #reconnect(HostConnection)}
+	 */
+	boolean failed(HostConnection connection, HostClient client) {
+		return connection.failed(client, reconnectDelay);
+	}
+
+	/**
+	 * Schedules the reconnect of a connection marked by {@link #failed(HostConnection, HostClient)}.
+	 */
+	void reconnect(final HostConnection connection) {
+		long delay = getDelay(connection.getFailures());
+		logger.debug("GpioRemoteControl: Connection to {} lost, reconnect in {} ms", connection.getHostUri(), delay);
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (connection.getState() == HostConnection.State.WAITING) { //Not closed or connected by checkConnections meanwhile
+					connector.connect(connection);
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return <code>true</code> if the host is connecting for longer than the connect timeout
+	 */
+	boolean isConnectTimedOut(HostConnection connection) {
+		return connection.getState() == HostConnection.State.CONNECTING && connection.getStateAge() > connectTimeout;
+	}
+
+	/**
+	 * @param failures the number of failures in a row, at least 1
+	 * @return the jittered delay in ms before the next connect
+	 */
+	long getDelay(int failures) {
+		if (failures <= 1) {
+			return 0;
+		}
+		long delay = reconnectDelay << Math.min(failures - 2, 20);
+		if (delay <= 0 || delay > maxReconnectDelay) {
+			delay = maxReconnectDelay;
+		}
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.Event;
+import home.control.model.PinConfiguration;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces DIM commands per host and pin, e.g. of a slider with a high sendFrequency.
+ * The first DIM command is sent at once and opens a window. Further DIM commands within
+ * the window only replace the pending value, which is sent when the window ends. So
+ * at most one DIM frame per window is sent, and the last value is always sent, also by
+ * {@link #flushAll()} before the binding stops.
+ * <p>
+ * All other commands are passed through immediately. A pending DIM value of the same
+ * pin is sent before them, so the order of the commands is kept.
+ * <p>
+ * The commands of a pin are sent in order by one thread at a time, without holding the
+ * lock of the pin, so a slow send doesn't block the other threads.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class DimCoalescer {
+
+	interface Sender {
+		void send(URI hostUri, PinConfiguration pinConf);
+	}
+
+	private static class Slot {
+		final URI hostUri;
+		boolean windowOpen;
+		PinConfiguration pending;
+		/** The commands to send, in order */
+		final Queue<PinConfiguration> outbox = new ArrayDeque<>();
+		/** A thread is sending the outbox */
+		boolean sending;
+
+		Slot(URI hostUri) {
+			this.hostUri = hostUri;
+		}
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final long windowMillis;
+	private final Sender sender;
+
+	private final ConcurrentMap<URI, ConcurrentMap<Integer, Slot>> slots = new ConcurrentHashMap<>();
+
+	/**
+	 * @param scheduler used to close the windows
+	 * @param windowMillis length of the window in ms, in which only the newest DIM value is kept
+	 * @param sender sends the commands which passed the coalescer
+	 */
+	DimCoalescer(ScheduledExecutorService scheduler, long windowMillis, Sender sender) {
+		this.scheduler = scheduler;
+		this.windowMillis = windowMillis;
+		this.sender = sender;
+	}
+
+	void submit(URI hostUri, PinConfiguration pinConf) {
+		final Slot slot = getSlot(hostUri, pinConf.getNumber());
+		synchronized (slot) {
+			if (pinConf.getEvent() != Event.DIM) {
+				takePending(slot);
+				slot.outbox.add(pinConf);
+			} else if (slot.windowOpen) {
+				slot.pending = pinConf; //Latest wins
+				return;
+			} else {
+				slot.outbox.add(pinConf);
+				openWindow(slot);
+			}
+		}
+		send(slot);
+	}
+
+	/**
+	 * Sends the pending DIM values of all pins now, e.g. before the binding stops.
+	 */
+	void flushAll() {
+		for (ConcurrentMap<Integer, Slot> pins : slots.values()) {
+			for (Slot slot : pins.values()) {
+				synchronized (slot) {
+					takePending(slot);
+				}
+				send(slot);
+			}
+		}
+	}
+
+	/** Forgets a host which is not used anymore. Pending values are dropped. */
+	void remove(URI hostUri) {
+		ConcurrentMap<Integer, Slot> pins = slots.remove(hostUri);
+		if (pins != null) {
+			for (Slot slot : pins.values()) {
+				synchronized (slot) {
+					slot.pending = null;
+					slot.outbox.clear();
+				}
+			}
+		}
+	}
+
+	private void openWindow(final Slot slot) {
+		slot.windowOpen = true;
+		scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				closeWindow(slot);
+			}
+		}, windowMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void closeWindow(Slot slot) {
+		synchronized (slot) {
+			if (slot.pending != null) {
+				takePending(slot);
+				openWindow(slot); //Keep the rate limited while the slider is still moving
+			} else {
+				slot.windowOpen = false;
+			}
+		}
+		send(slot);
+	}
+
+	/** Must be called with the lock of the slot held. */
+	private void takePending(Slot slot) {
+		if (slot.pending != null) {
+			slot.outbox.add(slot.pending);
+			slot.pending = null;
+		}
+	}
+
+	/**
+	 * Sends the outbox of the slot, unless another thread is already sending it. That
+	 * thread then also sends the commands added meanwhile.
+	 */
+	private void send(Slot slot) {
+		synchronized (slot) {
+			if (slot.sending) {
+				return;
+			}
+			slot.sending = true;
+		}
+		boolean done = false;
+		try {
+			while (true) {
+				PinConfiguration pinConf;
+				synchronized (slot) {
+					pinConf = slot.outbox.poll();
+					if (pinConf == null) {
+						slot.sending = false;
+						done = true;
+						return;
+					}
+				}
+				sender.send(slot.hostUri, pinConf);
+			}
+		} finally {
+			if (!done) {
+				synchronized (slot) {
+					slot.sending = false; //The sender failed, the next call sends the rest
+				}
+			}
+		}
+	}
+
+	private Slot getSlot(URI hostUri, int pinNumber) {
+		ConcurrentMap<Integer, Slot> pins = slots.get(hostUri);
+		if (pins == null) {
+			slots.putIfAbsent(hostUri, new ConcurrentHashMap<Integer, Slot>());
+			pins = slots.get(hostUri);
+		}
+		Slot slot = pins.get(pinNumber);
+		if (slot == null) {
+			pins.putIfAbsent(pinNumber, new Slot(hostUri));
+			slot = pins.get(pinNumber);
+		}
+		return slot;
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.PinConfiguration;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers the frames for one host and sends them as one JSON array frame, e.g.
+ * <code>[{"event":"SET","number":1,...},{"event":"SET","number":2,...}]</code>.
+ * A batch is sent when the flush interval after its first frame has elapsed or when
+ * it reached the maximum size. A batch with only one frame is sent as plain frame.
+ * <p>
+ * If the connection was lost meanwhile, the commands of the batch are handed back to the
+ * {@link Sender}, so they can be held for the reconnect. {@link #flushAll()} sends the
+ * open batches before the binding stops.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class FrameBatcher {
+
+	interface Sender {
+		/**
+		 * @return <code>false</code> if the frame could not be sent
+		 */
+		boolean send(URI hostUri, String frame);
+
+		/** The commands of a frame which could not be sent, in order */
+		void failed(URI hostUri, List<PinConfiguration> pinConfs);
+	}
+
+	private static class Batch {
+		final URI hostUri;
+		List<String> frames = new ArrayList<>();
+		List<PinConfiguration> pinConfs = new ArrayList<>();
+		boolean flushScheduled;
+
+		Batch(URI hostUri) {
+			this.hostUri = hostUri;
+		}
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final long flushInterval;
+	private final int maxSize;
+	private final Sender sender;
+
+	private final ConcurrentMap<URI, Batch> batches = new ConcurrentHashMap<>();
+
+	/**
+	 * @param scheduler used to flush the batches
+	 * @param flushInterval time in ms a frame waits at most for other frames to the same host
+	 * @param maxSize the number of frames which causes an immediate flush
+	 * @param sender sends the batched frames
+	 */
+	FrameBatcher(ScheduledExecutorService scheduler, long flushInterval, int maxSize, Sender sender) {
+		this.scheduler = scheduler;
+		this.flushInterval = flushInterval;
+		this.maxSize = maxSize;
+		this.sender = sender;
+	}
+
+	/**
+	 * @param frame the encoded command
+	 */
+	void submit(URI hostUri, PinConfiguration pinConf, String frame) {
+		final Batch batch = getBatch(hostUri);
+		synchronized (batch) {
+			batch.frames.add(frame);
+			batch.pinConfs.add(pinConf);
+			if (batch.frames.size() >= maxSize) {
+				flush(batch);
+			} else if (!batch.flushScheduled) {
+				batch.flushScheduled = true;
+				scheduler.schedule(new Runnable() {
+					@Override
+					public void run() {
+						synchronized (batch) {
+							batch.flushScheduled = false;
+							flush(batch);
+						}
+					}
+				}, flushInterval, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Sends the open batches of all hosts now, e.g. before the binding stops.
+	 */
+	void flushAll() {
+		for (Batch batch : batches.values()) {
+			synchronized (batch) {
+				flush(batch);
+			}
+		}
+	}
+
+	/** Forgets a host which is not used anymore. Its open batch is dropped. */
+	void remove(URI hostUri) {
+		Batch batch = batches.remove(hostUri);
+		if (batch != null) {
+			synchronized (batch) {
+				batch.frames.clear();
+				batch.pinConfs.clear();
+			}
+		}
+	}
+
+	/** Must be called with the lock of the batch held, so frames of one host are sent in order. */
+	private void flush(Batch batch) {
+		List<String> frames = batch.frames;
+		List<PinConfiguration> pinConfs = batch.pinConfs;
+		if (frames.isEmpty()) {
+			return;
+		}
+		batch.frames = new ArrayList<>(frames.size());
+		batch.pinConfs = new ArrayList<>(frames.size());
+		if (frames.size() == 1) {
+			if (!sender.send(batch.hostUri, frames.get(0))) {
+				sender.failed(batch.hostUri, pinConfs);
+			}
+			return;
+		}
+		int length = 2;
+		for (String frame : frames) {
+			length += frame.length() + 1;
+		}
+		StringBuilder array = new StringBuilder(length).append('[');
+		for (int i = 0; i < frames.size(); i++) {
+			if (i > 0) {
+				array.append(',');
+			}
+			array.append(frames.get(i));
+		}
+		if (!sender.send(batch.hostUri, array.append(']').toString())) {
+			sender.failed(batch.hostUri, pinConfs);
+		}
+	}
+
+	private Batch getBatch(URI hostUri) {
+		Batch batch = batches.get(hostUri);
+		if (batch == null) {
+			batches.putIfAbsent(hostUri, new Batch(hostUri));
+			batch = batches.get(hostUri);
+		}
+		return batch;
+	}
+}
@@ -11,16 +11,35 @@ package org.openhab.binding.gpioremotecontrol.internal;
 import home.control.model.*;
 import home.control.model.HostAndTempAndPinConfiguration.ConfigMode;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.java_websocket.WebSocket;
-import com.google.gson.Gson;
 import org.openhab.binding.gpioremotecontrol.GpioRemoteControlBindingProvider;
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.library.types.DecimalType;
-import org.openhab.core.library.types.IncreaseDecreaseType;
 import org.openhab.core.library.types.OnOffType;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
@@ -28,6 +47,8 @@ import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.stream.JsonWriter;
+
 	
 
 /**
@@ -48,7 +69,14 @@ public class GpioRemoteControlBinding extends AbstractActiveBinding<GpioRemoteCo
 	 * was called.
 	 */
 	private BundleContext bundleContext;	
-	Gson gson = new Gson();
+	
+	/** Incoming frames are decoded on the dispatcher thread, each thread gets its own decoder */
+	private final ThreadLocal<ServerMessageDecoder> decoders = new ThreadLocal<ServerMessageDecoder>() {
+		@Override
+		protected ServerMessageDecoder initialValue() {
+			return new ServerMessageDecoder();
+		}
+	};
 	
 	/** 
 	 * the refresh interval which is used to poll values from the GpioRemoteControl
@@ -56,6 +84,193 @@ public class GpioRemoteControlBinding extends AbstractActiveBinding<GpioRemoteCo
 	 */
 	private long refreshInterval = 10000;
 	
+	/**
+	 * the window in ms in which only the newest DIM value of a pin is sent
+	 * (optional, defaults to 0 = every DIM command is sent)
+	 */
+	private long dimInterval = 0;
+	
+	/** 
+	 * the delay in ms before the second reconnect in a row to a host. It is doubled for every
+	 * further failed reconnect. The first reconnect happens at once. (optional, defaults to 1000ms)
+	 */
+	private long reconnectDelay = 1000;
+	
+	/** the upper limit of the reconnect delay (optional, defaults to 60000ms) */
+	private long reconnectMaxDelay = 60000;
+	
+	/** the time a connection may take to open, before it counts as failed (optional, defaults to 10000ms) */
+	private long connectTimeout = 10000;
+	
+	/**
+	 * the number of selector threads which serve the connections to all hosts, instead of
+	 * one thread per connection (optional, defaults to 0 = a thread per connection)
+	 */
+	private int selectorThreads = 0;
+	
+	/** Only set if the connections are served by selector threads, see {@link #selectorThreads} */
+	private SelectorTransport selectorTransport;
+	
+	/** Reconnects lost connections, driven by the callbacks of the clients. Valid while the binding is active. */
+	private ConnectionSupervisor connectionSupervisor;
+	
+	/** the number of hosts which connect at the same time (optional, defaults to 16) */
+	private int connectConcurrency = 16;
+	
+	/**
+	 * the time in ms a command waits for the first connect of its host after a start, instead
+	 * of being held or dropped (optional, defaults to 2000ms, 0 = no waiting)
+	 */
+	private long connectWait = 2000;
+	
+	/** the time in ms between two pings to a host, 0 = no pings (optional, defaults to 10000ms) */
+	private long heartbeatInterval = 10000;
+	
+	/** the time in ms a host may be silent before its connection counts as dead (optional, defaults to 30000ms) */
+	private long heartbeatTimeout = 30000;
+	
+	/** Pings the hosts and drops silent connections. Only set if {@link #heartbeatInterval} is > 0. */
+	private HeartbeatMonitor heartbeatMonitor;
+	
+	/** Limits the handshakes in flight, see {@link #connectConcurrency}. Valid while the binding is active. */
+	private ConnectGate connectGate;
+	
+	/** Set while a connect of the new hosts is scheduled */
+	private final AtomicBoolean connectNewPending = new AtomicBoolean();
+	
+	/** the number of received frames buffered per host (optional, defaults to 256) */
+	private int inboundQueueSize = 256;
+	
+	/** what happens with received frames if the buffer of a host is full (optional, defaults to DROP_OLDEST) */
+	private InboundDispatcher.OverflowPolicy inboundOverflow = InboundDispatcher.OverflowPolicy.DROP_OLDEST;
+	
+	/** Handles the received frames off the WebSocket reader threads. Valid while the binding is active. */
+	private InboundDispatcher inboundDispatcher;
+	
+	/** The connections of all providers, one per host */
+	private final ConnectionRegistry connectionRegistry = ConnectionRegistry.getInstance();
+	
+	/** Runs the delayed work of the binding, like closing the DIM windows. Valid while the binding is active. */
+	private ScheduledExecutorService scheduler;
+	
+	/** Writes the frames of the commands, caches the frequent ones */
+	private final PinConfigurationEncoder pinConfigurationEncoder = new PinConfigurationEncoder();
+	
+	/** The PWM values of the output pins, updated atomically by the commands */
+	private final PinStateStore pinStates = new PinStateStore();
+	
+	/** Parses the commands of output items, caches the result per command string */
+	private final CommandParser commandParser = new CommandParser(256);
+	
+	/** Filters of the temperature items by item name, used by the dispatcher thread */
+	private final ConcurrentMap<String, TemperatureFilter> temperatureFilters = new ConcurrentHashMap<>();
+	
+	/** Debounces the input items with a debounce time. Valid while the binding is active. */
+	private InputDebouncer inputDebouncer;
+	
+	/** Only set if DIM commands should be coalesced, see {@link #dimInterval} */
+	private DimCoalescer dimCoalescer;
+	
+	/**
+	 * the time in ms a frame waits for other frames to the same host, which are
+	 * then sent together as one JSON array frame (optional, defaults to 0 = no batching)
+	 */
+	private long batchInterval = 0;
+	
+	/** the number of frames which are sent at once as batch (optional, defaults to 20) */
+	private int batchSize = 20;
+	
+	/** Hosts which don't understand JSON array frames. They always get single frames. */
+	private Set<URI> singleFrameHosts = new HashSet<>();
+	
+	/** Only set if frames should be batched, see {@link #batchInterval} */
+	private FrameBatcher frameBatcher;
+	
+	/** Hosts which use the binary protocol of {@link BinaryCodec} instead of JSON frames */
+	private Set<URI> binaryHosts = new HashSet<>();
+	
+	/** the number of pins per host whose commands are held while the host is not connected (optional, defaults to 64, 0 = off) */
+	private int offlineQueueSize = 64;
+	
+	/** the time in ms SET and DIM commands are held for a host which is not connected (optional, defaults to 60000) */
+	private long offlineTtl = 60000;
+	
+	/** the time in ms FADE, FADE_UP_DOWN and BLINK commands are held for a host which is not connected (optional, defaults to 5000) */
+	private long offlineEffectTtl = 5000;
+	
+	/** Metrics per host, registered as MBeans while the binding is active */
+	private final BindingMetrics metrics = new BindingMetrics(new HostMetrics.Source() {
+		@Override
+		public HostConnection getConnection(URI hostUri) {
+			return GpioRemoteControlBinding.this.getConnection(hostUri);
+		}
+
+		@Override
+		public int getInboundQueueDepth(URI hostUri) {
+			InboundDispatcher dispatcher = inboundDispatcher;
+			return dispatcher == null ? 0 : dispatcher.getQueueDepth(hostUri);
+		}
+
+		@Override
+		public long getDroppedFrames(URI hostUri) {
+			InboundDispatcher dispatcher = inboundDispatcher;
+			return dispatcher == null ? 0 : dispatcher.getDroppedFrames(hostUri);
+		}
+
+		@Override
+		public int getInFlightCommands(URI hostUri) {
+			AckTracker tracker = ackTracker;
+			return tracker == null ? 0 : tracker.getInFlight(hostUri);
+		}
+	});
+	
+	/** Only set if commands should be held for hosts which are not connected, see {@link #offlineQueueSize} */
+	private OfflineQueue offlineQueue;
+	
+	/** Hosts which acknowledge every command with a sequence id */
+	private Set<URI> ackHosts = new HashSet<>();
+	
+	/** the time in ms the ACK of a command may take, before it is sent again (optional, defaults to 2000) */
+	private long ackTimeout = 2000;
+	
+	/** how often a command which is not acknowledged is sent again (optional, defaults to 2) */
+	private int ackRetries = 2;
+	
+	/** Only set if a host acknowledges commands, see {@link #ackHosts} */
+	private AckTracker ackTracker;
+	
+	/** Hosts whose temperature sensors are polled, instead of waiting for the readings the Pi sends by itself */
+	private Set<URI> temperaturePollHosts = new HashSet<>();
+	
+	/** the poll interval in ms of changing temperatures (optional, defaults to 5000) */
+	private long temperaturePollMin = 5000;
+	
+	/** the poll interval in ms of stable temperatures (optional, defaults to 300000) */
+	private long temperaturePollMax = 300000;
+	
+	/** the largest change in 1/1000 °C of a stable temperature (optional, defaults to 0.1 °C) */
+	private int temperaturePollStable = 100;
+	
+	/** Only set if temperatures are polled, see {@link #temperaturePollHosts} */
+	private TemperaturePoller temperaturePoller;
+	
+	/** Commands of scenes waiting for their ACK, by identity */
+	private final ConcurrentMap<PinConfiguration, SceneProgress> sceneCommands = new ConcurrentHashMap<>();
+	
+	/** Updates the state of a scene item once all hosts accepted it */
+	private final SceneProgress.Listener sceneListener = new SceneProgress.Listener() {
+		@Override
+		public void accepted(SceneProgress progress, long nanos) {
+			logger.debug("GpioRemoteControl: Scene {} accepted by all hosts in {} ms", progress.getItemName(), TimeUnit.NANOSECONDS.toMillis(nanos));
+			eventPublisher.postUpdate(progress.getItemName(), progress.isOn() ? OnOffType.ON : OnOffType.OFF);
+		}
+
+		@Override
+		public void failed(SceneProgress progress, Set<URI> failedHosts) {
+			logger.warn("GpioRemoteControl: Scene {} was not accepted by {}", progress.getItemName(), failedHosts);
+		}
+	};
+	
 	
 	public GpioRemoteControlBinding() {
 		logger.debug("GpioRemoteControlBinding binding started");
@@ -77,7 +292,282 @@ public class GpioRemoteControlBinding extends AbstractActiveBinding<GpioRemoteCo
 			refreshInterval = Long.parseLong(refreshIntervalString);
 		}
 		
+		// <bindingName>:dimInterval=<windowInMs> coalesces fast DIM commands, e.g. of sliders
+		String dimIntervalString = (String) configuration.get("dimInterval");
+		if (StringUtils.isNotBlank(dimIntervalString)) {
+			dimInterval = Long.parseLong(dimIntervalString);
+		}
+		
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "GpioRemoteControl Scheduler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		if (dimInterval > 0) {
+			dimCoalescer = new DimCoalescer(scheduler, dimInterval, new DimCoalescer.Sender() {
+				@Override
+				public void send(URI hostUri, PinConfiguration pinConf) {
+					sendPinConfiguration(hostUri, pinConf);
+				}
+			});
+		}
+		
+		// <bindingName>:batchInterval=<ms> and <bindingName>:batchSize=<frames> send frames to the same host as one array frame
+		String batchIntervalString = (String) configuration.get("batchInterval");
+		if (StringUtils.isNotBlank(batchIntervalString)) {
+			batchInterval = Long.parseLong(batchIntervalString);
+		}
+		String batchSizeString = (String) configuration.get("batchSize");
+		if (StringUtils.isNotBlank(batchSizeString)) {
+			batchSize = Integer.parseInt(batchSizeString);
+		}
+		// <bindingName>:singleFrameHosts=<host:port>,<host:port> for servers which can't handle array frames
+		singleFrameHosts = parseHosts((String) configuration.get("singleFrameHosts"), "singleFrameHosts");
+		// <bindingName>:binaryHosts=<host:port>,<host:port> for servers which use the binary protocol
+		binaryHosts = parseHosts((String) configuration.get("binaryHosts"), "binaryHosts");
+		// <bindingName>:reconnectDelay, reconnectMaxDelay and connectTimeout in ms tune the reconnects
+		String reconnectDelayString = (String) configuration.get("reconnectDelay");
+		if (StringUtils.isNotBlank(reconnectDelayString)) {
+			reconnectDelay = Long.parseLong(reconnectDelayString);
+		}
+		String reconnectMaxDelayString = (String) configuration.get("reconnectMaxDelay");
+		if (StringUtils.isNotBlank(reconnectMaxDelayString)) {
+			reconnectMaxDelay = Long.parseLong(reconnectMaxDelayString);
+		}
+		String connectTimeoutString = (String) configuration.get("connectTimeout");
+		if (StringUtils.isNotBlank(connectTimeoutString)) {
+			connectTimeout = Long.parseLong(connectTimeoutString);
+		}
+		// <bindingName>:selectorThreads=<n> serves all connections by n threads instead of one per host
+		String selectorThreadsString = (String) configuration.get("selectorThreads");
+		if (StringUtils.isNotBlank(selectorThreadsString)) {
+			selectorThreads = Integer.parseInt(selectorThreadsString);
+		}
+		if (selectorThreads > 0) {
+			try {
+				selectorTransport = new SelectorTransport(selectorThreads);
+				selectorTransport.start();
+			} catch (IOException e) {
+				logger.warn("GpioRemoteControl: Selector threads not available, using a thread per connection: {}", e.toString());
+			}
+		}
+		// <bindingName>:connectConcurrency=<hosts> and connectWait=<ms> tune the connects after a start
+		String connectConcurrencyString = (String) configuration.get("connectConcurrency");
+		if (StringUtils.isNotBlank(connectConcurrencyString)) {
+			connectConcurrency = Integer.parseInt(connectConcurrencyString);
+		}
+		String connectWaitString = (String) configuration.get("connectWait");
+		if (StringUtils.isNotBlank(connectWaitString)) {
+			connectWait = Long.parseLong(connectWaitString);
+		}
+		// <bindingName>:heartbeatInterval=<ms> and heartbeatTimeout=<ms> find Pis which stopped answering
+		String heartbeatIntervalString = (String) configuration.get("heartbeatInterval");
+		if (StringUtils.isNotBlank(heartbeatIntervalString)) {
+			heartbeatInterval = Long.parseLong(heartbeatIntervalString);
+		}
+		String heartbeatTimeoutString = (String) configuration.get("heartbeatTimeout");
+		if (StringUtils.isNotBlank(heartbeatTimeoutString)) {
+			heartbeatTimeout = Long.parseLong(heartbeatTimeoutString);
+		}
+		if (heartbeatInterval > 0) {
+			heartbeatMonitor = new HeartbeatMonitor(scheduler, heartbeatInterval, heartbeatTimeout, connectionRegistry, 
+					new HeartbeatMonitor.Listener() {
+				@Override
+				public void silent(HostConnection connection, HostClient client, long silence) {
+					connectionSilent(connection, client, silence);
+				}
+			});
+			heartbeatMonitor.start();
+		}
+		connectGate = new ConnectGate(connectConcurrency, scheduler, new ConnectGate.Connector() {
+			@Override
+			public void connect(HostConnection connection) {
+				connectClient(connection);
+			}
+		});
+		connectionSupervisor = new ConnectionSupervisor(scheduler, reconnectDelay, reconnectMaxDelay, connectTimeout, 
+				new ConnectionSupervisor.Connector() {
+			@Override
+			public void connect(HostConnection connection) {
+				submitConnect(connection);
+			}
+		});
+		
+		// <bindingName>:inboundQueueSize=<frames> and <bindingName>:inboundOverflow=dropOldest|block|dropNewest
+		String inboundQueueSizeString = (String) configuration.get("inboundQueueSize");
+		if (StringUtils.isNotBlank(inboundQueueSizeString)) {
+			inboundQueueSize = Integer.parseInt(inboundQueueSizeString);
+			if (inboundQueueSize < 1) {
+				logger.warn("GpioRemoteControl: inboundQueueSize must be at least 1, using 1");
+				inboundQueueSize = 1;
+			}
+		}
+		String inboundOverflowString = (String) configuration.get("inboundOverflow");
+		if (StringUtils.isNotBlank(inboundOverflowString)) {
+			try {
+				inboundOverflow = InboundDispatcher.OverflowPolicy.valueOf(
+						inboundOverflowString.trim().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase());
+			} catch (IllegalArgumentException e) {
+				logger.warn("GpioRemoteControl: Unknown inboundOverflow '{}', using {}", inboundOverflowString, inboundOverflow);
+			}
+		}
+		if (inboundOverflow == InboundDispatcher.OverflowPolicy.BLOCK && selectorTransport != null) {
+			//A selector thread serves many Pis, one full buffer would stall all of them
+			logger.warn("GpioRemoteControl: inboundOverflow block doesn't work with selectorThreads, using {}", InboundDispatcher.OverflowPolicy.DROP_OLDEST);
+			inboundOverflow = InboundDispatcher.OverflowPolicy.DROP_OLDEST;
+		}
+		inboundDispatcher = new InboundDispatcher(inboundQueueSize, inboundOverflow, new InboundDispatcher.Handler() {
+			@Override
+			public void handle(URI hostUri, Object message) {
+				if (message instanceof byte[]) {
+					receiveBinaryMessage(hostUri, (byte[]) message);
+				} else {
+					receiveServerMessage(hostUri, (String) message);
+				}
+			}
+
+			@Override
+			public Object getKey(Object message) {
+				return getSensorKey(message);
+			}
+		});
+		inboundDispatcher.start();
+		
+		if (batchInterval > 0) {
+			frameBatcher = new FrameBatcher(scheduler, batchInterval, batchSize, new FrameBatcher.Sender() {
+				@Override
+				public boolean send(URI hostUri, String frame) {
+					return sendFrame(hostUri, frame);
+				}
+
+				@Override
+				public void failed(URI hostUri, List<PinConfiguration> pinConfs) {
+					if (ackHosts.contains(hostUri)) {
+						return; //Retried by the AckTracker
+					}
+					for (PinConfiguration pinConf : pinConfs) {
+						holdOffline(hostUri, pinConf);
+					}
+				}
+			});
+		}
+		
+		// <bindingName>:offlineQueueSize=<pins>, offlineTtl=<ms> and offlineEffectTtl=<ms> hold commands while a host is reconnected
+		String offlineQueueSizeString = (String) configuration.get("offlineQueueSize");
+		if (StringUtils.isNotBlank(offlineQueueSizeString)) {
+			offlineQueueSize = Integer.parseInt(offlineQueueSizeString);
+		}
+		String offlineTtlString = (String) configuration.get("offlineTtl");
+		if (StringUtils.isNotBlank(offlineTtlString)) {
+			offlineTtl = Long.parseLong(offlineTtlString);
+		}
+		String offlineEffectTtlString = (String) configuration.get("offlineEffectTtl");
+		if (StringUtils.isNotBlank(offlineEffectTtlString)) {
+			offlineEffectTtl = Long.parseLong(offlineEffectTtlString);
+		}
+		if (offlineQueueSize > 0) {
+			offlineQueue = new OfflineQueue(offlineQueueSize, offlineTtl, offlineEffectTtl);
+		}
+		
+		// <bindingName>:ackHosts=<host:port>,<host:port> for servers which acknowledge commands, ackTimeout=<ms> and ackRetries=<n>
+		ackHosts = parseHosts((String) configuration.get("ackHosts"), "ackHosts");
+		String ackTimeoutString = (String) configuration.get("ackTimeout");
+		if (StringUtils.isNotBlank(ackTimeoutString)) {
+			ackTimeout = Long.parseLong(ackTimeoutString);
+		}
+		String ackRetriesString = (String) configuration.get("ackRetries");
+		if (StringUtils.isNotBlank(ackRetriesString)) {
+			ackRetries = Integer.parseInt(ackRetriesString);
+		}
+		if (!ackHosts.isEmpty()) {
+			ackTracker = new AckTracker(scheduler, ackTimeout, ackRetries, new AckTracker.Listener() {
+				@Override
+				public void resend(URI hostUri, PinConfiguration pinConf) {
+					HostMetrics hostMetrics = metrics.get(hostUri);
+					if (hostMetrics != null) {
+						hostMetrics.retried();
+					}
+					logger.debug("GpioRemoteControl: No ACK of {} command {} of pin {} from {}, sending it again", pinConf.getEvent(), pinConf.getSeq(), pinConf.getNumber(), hostUri);
+					sendPinConfiguration(hostUri, pinConf);
+				}
+
+				@Override
+				public void acknowledged(URI hostUri, PinConfiguration pinConf, long roundTripNanos) {
+					HostMetrics hostMetrics = metrics.get(hostUri);
+					if (hostMetrics != null) {
+						hostMetrics.ackLatency.record(roundTripNanos);
+					}
+					SceneProgress progress = sceneCommands.remove(pinConf);
+					if (progress != null) {
+						progress.accepted(hostUri);
+					}
+				}
+
+				@Override
+				public void timedOut(URI hostUri, PinConfiguration pinConf) {
+					HostMetrics hostMetrics = metrics.get(hostUri);
+					if (hostMetrics != null) {
+						hostMetrics.ackTimedOut();
+					}
+					SceneProgress progress = sceneCommands.remove(pinConf);
+					if (progress != null) {
+						progress.failed(hostUri);
+					}
+					logger.warn("GpioRemoteControl: {} command of pin {} was not acknowledged by {}", pinConf.getEvent(), pinConf.getNumber(), hostUri);
+				}
+			});
+		}
+		
+		// <bindingName>:temperaturePollHosts=<host:port>,<host:port> for servers which answer temperature requests,
+		// temperaturePollMin=<ms>, temperaturePollMax=<ms> and temperaturePollStable=<°C> adapt the poll intervals
+		temperaturePollHosts = parseHosts((String) configuration.get("temperaturePollHosts"), "temperaturePollHosts");
+		String temperaturePollMinString = (String) configuration.get("temperaturePollMin");
+		if (StringUtils.isNotBlank(temperaturePollMinString)) {
+			temperaturePollMin = Long.parseLong(temperaturePollMinString);
+		}
+		String temperaturePollMaxString = (String) configuration.get("temperaturePollMax");
+		if (StringUtils.isNotBlank(temperaturePollMaxString)) {
+			temperaturePollMax = Long.parseLong(temperaturePollMaxString);
+		}
+		String temperaturePollStableString = (String) configuration.get("temperaturePollStable");
+		if (StringUtils.isNotBlank(temperaturePollStableString)) {
+			temperaturePollStable = Math.round(Float.parseFloat(temperaturePollStableString) * 1000); //°C to the 1/1000 °C the server sends
+		}
+		if (!temperaturePollHosts.isEmpty()) {
+			temperaturePoller = new TemperaturePoller(scheduler, temperaturePollHosts, temperaturePollMin, temperaturePollMax, temperaturePollStable, 
+					new TemperaturePoller.Source() {
+				@Override
+				public Collection<String> getDeviceIds(URI hostUri) {
+					Set<String> deviceIds = new HashSet<>();
+					for (GpioRemoteControlBindingProvider provider : providers) {
+						deviceIds.addAll(provider.getTemperatureDeviceIds(hostUri));
+					}
+					return deviceIds;
+				}
+			}, new TemperaturePoller.Requester() {
+				@Override
+				public boolean request(URI hostUri, List<String> deviceIds) {
+					return requestTemperatures(hostUri, deviceIds);
+				}
+			});
+			temperaturePoller.start();
+		}
+		
+		inputDebouncer = new InputDebouncer(scheduler, new InputDebouncer.Publisher() {
+			@Override
+			public void publish(URI hostUri, String itemName, boolean high) {
+				postUpdate(hostUri, itemName, high ? OnOffType.ON : OnOffType.OFF);
+			}
+		});
+		
+		metrics.start();
+		
 		setProperlyConfigured(true);
+		connectNewPending.set(false);
+		connectNewHosts(); //Don't wait for the first refresh
 	}
 	
 	/**
@@ -104,10 +594,106 @@ public class GpioRemoteControlBinding extends AbstractActiveBinding<GpioRemoteCo
 	 */
 	public void deactivate(final int reason) {
 		this.bundleContext = null;
+		if (dimCoalescer != null) {
+			dimCoalescer.flushAll(); //The last values are sent while the connections are still open
+		}
+		if (frameBatcher != null) {
+			frameBatcher.flushAll();
+		}
+		for (HostConnection connection : connectionRegistry.getConnections()) {
+			connection.reset(); //The registry outlives the binding, its clients would call back into this instance
+		}
+		metrics.stop();
+		dimCoalescer = null;
+		frameBatcher = null;
+		offlineQueue = null;
+		ackTracker = null;
+		sceneCommands.clear();
+		if (temperaturePoller != null) {
+			temperaturePoller.stop();
+			temperaturePoller = null;
+		}
+		inputDebouncer = null;
+		connectionSupervisor = null;
+		connectGate = null;
+		if (heartbeatMonitor != null) {
+			heartbeatMonitor.stop();
+			heartbeatMonitor = null;
+		}
+		if (selectorTransport != null) {
+			selectorTransport.stop();
+			selectorTransport = null;
+		}
+		if (inboundDispatcher != null) {
+			inboundDispatcher.stop();
+			inboundDispatcher = null;
+		}
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+		for (TemperatureFilter filter : temperatureFilters.values()) {
+			filter.stop();
+		}
+		temperatureFilters.clear();
 		// deallocate resources here that are no longer needed and 
 		// should be reset when activating this binding again
 	}
 
+	/**
+	 * @{inheritDoc}
+	 */
+	@Override
+	public void bindingChanged(BindingProvider provider, String itemName) {
+		super.bindingChanged(provider, itemName);
+		TemperatureFilter filter = temperatureFilters.remove(itemName); //Options may have changed, the filter starts over
+		if (filter != null) {
+			filter.stop();
+		}
+		InputDebouncer debouncer = inputDebouncer;
+		if (debouncer != null) {
+			debouncer.remove(itemName);
+		}
+		connectNewHosts();
+	}
+	
+	/**
+	 * @{inheritDoc}
+	 */
+	@Override
+	public void allBindingsChanged(BindingProvider provider) {
+		super.allBindingsChanged(provider);
+		connectNewHosts();
+	}
+	
+	/**
+	 * Connects the hosts which were added by the providers, all at once up to {@link #connectConcurrency}.
+	 * While the items are read, this is called for every item, so the work is coalesced into one
+	 * run on the scheduler.
+	 */
+	private void connectNewHosts() {
+		final ScheduledExecutorService executor = scheduler;
+		if (executor == null || connectGate == null || !connectNewPending.compareAndSet(false, true)) {
+			return;
+		}
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				connectNewPending.set(false);
+				int count = 0;
+				for (HostConnection connection : connectionRegistry.getConnections()) {
+					if (connection.getState() == HostConnection.State.NEW) {
+						addHost(connection);
+						submitConnect(connection);
+						count++;
+					}
+				}
+				if (count > 0) {
+					logger.debug("GpioRemoteControl: Connecting {} new hosts, {} at a time", count, connectConcurrency);
+				}
+			}
+		});
+	}
 	
 	/**
 	 * @{inheritDoc}
@@ -135,49 +721,253 @@ public class GpioRemoteControlBinding extends AbstractActiveBinding<GpioRemoteCo
 		checkConnections();
 	}
 
+	/**
+	 * Safety net for the event driven reconnects of the {@link ConnectionSupervisor}: Connects
+	 * new hosts, gives up connects which take too long and catches missed close callbacks.
+	 */
 	private void checkConnections() {
-		for(GpioRemoteControlBindingProvider provider : providers){
-			for(URI keyUri : provider.getClientMap().keySet()){
-				if (provider.getClientMap().get(keyUri) == null) {
-					logger.debug("checkConnections: Client was NULL. Connect client: " + keyUri.toString());
-					provider.getClientMap().put(keyUri, new Client(keyUri, this)); //Override old, confused WebSocket					
-					provider.getClientMap().get(keyUri).connect(); //Connect it
-				} else if(provider.getClientMap().get(keyUri).getReadyState() == WebSocket.READY_STATE_CONNECTING){ //If client is not connected yet
-					logger.debug("checkConnections: Connect client: " + keyUri.toString());
-					provider.getClientMap().put(keyUri, new Client(keyUri, this)); //Override old, confused WebSocket					
-					provider.getClientMap().get(keyUri).connect(); //Connect it					
-				} else if(provider.getClientMap().get(keyUri).getReadyState() == WebSocket.READY_STATE_OPEN) {
-					logger.debug("checkConnections: running connection: " + keyUri.toString());
+		ConnectionSupervisor supervisor = connectionSupervisor;
+		if (supervisor == null) {
+			return;
+		}
+		for (HostConnection connection : connectionRegistry.getConnections()) {
+			HostClient client = connection.getClient();
+			switch (connection.getState()) {
+			case NEW:
+				logger.debug("checkConnections: Client was NULL. Connect client: " + connection.getHostUri());
+				submitConnect(connection);
+				break;
+			case CONNECTING:
+				if (supervisor.isConnectTimedOut(connection)) {
+					logger.debug("checkConnections: Connect timed out: " + connection.getHostUri());
+					connectionLost(connection, client);
+				}
+				break;
+			case OPEN:
+				if (client.getReadyState() != WebSocket.READY_STATE_OPEN) {
+					logger.debug("checkConnections: Connection closed without notice: " + connection.getHostUri());
+					connectionLost(connection, client);
+				} else if (inboundDispatcher != null) {
+					logger.debug("checkConnections: running connection: {}, queued frames: {}, dropped frames: {}", connection.getHostUri(),
+							inboundDispatcher.getQueueDepth(connection.getHostUri()), inboundDispatcher.getDroppedFrames(connection.getHostUri()));
 					//fine
-				} else { //If else Client state, start and connect new Websocket  
-					logger.debug("checkConnections: Create new client and connect: " + keyUri.toString());
-					provider.getClientMap().put(keyUri, new Client(keyUri, this)); //Override old, confused WebSocket
-					provider.getClientMap().get(keyUri).connect(); //Connect again
 				}
+				break;
+			default: //Reconnect is scheduled or connection is closed
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Connects the host as soon as the {@link ConnectGate} has a free slot.
+	 */
+	private void submitConnect(HostConnection connection) {
+		ConnectGate gate = connectGate;
+		if (gate != null) {
+			gate.submit(connection);
+		}
+	}
+	
+	/**
+	 * Replaces the client of the connection by a new one and connects it.
+	 */
+	private void connectClient(HostConnection connection) {
+		SelectorTransport transport = selectorTransport;
+		HostClient client = transport != null ? new SelectorClient(connection, this, transport.nextLoop()) : new Client(connection, this);
+		HostMetrics hostMetrics = addHost(connection);
+		if (connection.getFailures() > 0) {
+			hostMetrics.reconnecting();
+		}
+		if (connection.connecting(client)) {
+			client.connect();
+			watchConnect(connection, client);
+		} else {
+			connectDone(connection.getHostUri()); //Closed meanwhile
+		}
+	}
+	
+	/**
+	 * Creates the metrics and the inbound buffer of a new or connecting host. They are removed with the host in
+	 * {@link #removeUnusedConnections()}, so frames of a removed host don't create them again.
+	 * A host removed meanwhile is already closed, then they are removed again at once.
+	 */
+	private HostMetrics addHost(HostConnection connection) {
+		URI hostUri = connection.getHostUri();
+		HostMetrics hostMetrics = metrics.add(hostUri);
+		InboundDispatcher dispatcher = inboundDispatcher;
+		if (dispatcher != null) {
+			dispatcher.add(hostUri);
+		}
+		if (connection.getState() == HostConnection.State.CLOSED) {
+			metrics.remove(hostUri);
+			if (dispatcher != null) {
+				dispatcher.remove(hostUri);
+			}
+		}
+		return hostMetrics;
+	}
+	
+	/**
+	 * Gives the connect up after the connect timeout, so a host which doesn't answer frees its
+	 * slot in the {@link ConnectGate} without waiting for the next refresh.
+	 */
+	private void watchConnect(final HostConnection connection, final HostClient client) {
+		ScheduledExecutorService executor = scheduler;
+		if (executor == null) {
+			return;
+		}
+		executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (connection.getClient() == client && connection.getState() == HostConnection.State.CONNECTING) {
+					logger.debug("GpioRemoteControl: Connect to {} timed out", connection.getHostUri());
+					connectionLost(connection, client);
+				}
+			}
+		}, connectTimeout, TimeUnit.MILLISECONDS);
+	}
+	
+	/** Frees the slot of the host in the {@link ConnectGate}. */
+	private void connectDone(URI hostUri) {
+		ConnectGate gate = connectGate;
+		if (gate != null) {
+			gate.done(hostUri);
+		}
+	}
+	
+	/** Called by the client when its connection is open. */
+	void connectionOpened(HostConnection connection, HostClient client) {
+		if (connection.opened(client)) {
+			connectDone(connection.getHostUri());
+			flushOfflineQueue(connection.getHostUri());
+		}
+	}
+	
+	/** Sends the commands held while the host was not connected in one burst. */
+	private void flushOfflineQueue(URI hostUri) {
+		OfflineQueue queue = offlineQueue;
+		if (queue != null) {
+			int count = queue.flush(hostUri, new OfflineQueue.Sender() {
+				@Override
+				public void send(URI hostUri, List<PinConfiguration> pinConfs) {
+					sendHeld(hostUri, pinConfs);
+				}
+			});
+			if (count > 0) {
+				logger.debug("GpioRemoteControl: Sent {} held commands to {}", count, hostUri);
 			}
 		}
 	}
+	
+	/** Called by the client when its connection closed or could not be opened. */
+	void connectionLost(HostConnection connection, HostClient client) {
+		ConnectionSupervisor supervisor = connectionSupervisor;
+		if (supervisor != null && supervisor.failed(connection, client)) {
+			connectDone(connection.getHostUri()); //Before the reconnect, else the gate drops it as a duplicate
+			supervisor.reconnect(connection);
+		}
+	}
+	
+	/**
+	 * The host didn't send anything, not even a pong, for longer than the heartbeat timeout. Its
+	 * connection is marked dead at once, so the commands are held for the reconnect, and the
+	 * socket is dropped without waiting for the close handshake.
+	 */
+	private void connectionSilent(HostConnection connection, HostClient client, long silence) {
+		logger.warn("GpioRemoteControl: No answer from {} for {} ms, reconnecting", connection.getHostUri(), silence);
+		HostMetrics hostMetrics = metrics.get(connection.getHostUri());
+		if (hostMetrics != null) {
+			hostMetrics.heartbeatTimedOut();
+		}
+		connectionLost(connection, client);
+		client.abort();
+	}
+	
+	/**
+	 * Called by the client when a pong arrived.
+	 * 
+	 * @param pingNanos the send time of the ping, -1 if unknown
+	 */
+	void pongReceived(HostConnection connection, long pingNanos) {
+		HostMetrics hostMetrics = metrics.get(connection.getHostUri());
+		if (pingNanos >= 0 && hostMetrics != null) {
+			hostMetrics.heartbeatRtt.record(System.nanoTime() - pingNanos);
+		}
+	}
+	
+	/**
+	 * Waits until the first connect of the host after its start opened or failed, but no longer
+	 * than {@link #connectWait} after the host was added. So the first commands after a start
+	 * are sent at once, and don't wait for a refresh or land in the offline queue.
+	 * Called on the threads of the event bus only.
+	 */
+	private void awaitFirstConnect(URI hostUri) {
+		HostConnection connection = getConnection(hostUri);
+		if (connection == null || connection.isSettled()) {
+			return;
+		}
+		long remaining = connectWait - connection.getAge();
+		if (remaining <= 0) {
+			return;
+		}
+		try {
+			if (!connection.awaitSettled(remaining)) {
+				logger.debug("GpioRemoteControl: {} is not connected yet after {} ms", hostUri, connection.getAge());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
+	/**
+	 * @return the URIs of the comma separated hosts with port
+	 */
+	private Set<URI> parseHosts(String hosts, String key) {
+		Set<URI> uris = new HashSet<>();
+		if (StringUtils.isNotBlank(hosts)) {
+			for (String host : hosts.split(",")) {
+				try {
+					uris.add(new URI("ws://" + host.trim()));
+				} catch (URISyntaxException e) {
+					logger.warn("GpioRemoteControl: Invalid host '{}' in {}", host, key);
+				}
+			}
+		}
+		return uris;
+	}
+	
+	/**
+	 * Removes the hosts which no item of any provider uses anymore, and what the binding keeps for them.
+	 * The providers count the items per host, so this only touches the removed hosts.
+	 */
 	private void removeUnusedConnections() {
-		try{
-			for(GpioRemoteControlBindingProvider provider : providers){
-				keyLoop:
-				for(URI keyUri : provider.getClientMap().keySet()){
-					for(String itemName : provider.getItemNames()){						
-						URI uri = new URI("ws://" + provider.getConfig(itemName).getHostWithPort());
-						if(uri.equals(keyUri)){
-							continue keyLoop;
-						}						
-						provider.getClientMap().get(keyUri).close(); //Close unused connection	
-						provider.getClientMap().remove(keyUri); //If non Item uses the URI, remove the connection				
-					}
-				}			
+		for (URI hostUri : connectionRegistry.removeUnused()) {
+			logger.debug("GpioRemoteControl: No item uses {} anymore, connection closed", hostUri);
+			if (connectGate != null) {
+				connectGate.remove(hostUri);
+			}
+			if (dimCoalescer != null) {
+				dimCoalescer.remove(hostUri);
+			}
+			if (frameBatcher != null) {
+				frameBatcher.remove(hostUri);
+			}
+			if (inboundDispatcher != null) {
+				inboundDispatcher.remove(hostUri);
+			}
+			if (offlineQueue != null) {
+				offlineQueue.remove(hostUri);
+			}
+			if (ackTracker != null) {
+				ackTracker.remove(hostUri);
+			}
+			metrics.remove(hostUri);
+			pinStates.remove(hostUri);
+			if (temperaturePoller != null) {
+				temperaturePoller.remove(hostUri);
 			}
-		} catch (URISyntaxException e) {
-			e.printStackTrace();
-		} catch(Exception e){
-			logger.debug("Exception in removeUnusedConnections. Shit happens...");
-		}				
+		}
 	}
 
 
@@ -189,110 +979,395 @@ public class GpioRemoteControlBinding extends AbstractActiveBinding<GpioRemoteCo
 		// the code being executed when a command was sent on the openHAB
 		// event bus goes here. This method is only called if one of the
 		// BindingProviders provide a binding for the given 'itemName'.
+		long start = System.nanoTime();
 		logger.debug("GpioRemoteControl: internalReceiveCommand({},{}) is called!", itemName, command);
 				
-		for (GpioRemoteControlBindingProvider provider : providers) {
-			if (provider.getConfig(itemName).configMode != ConfigMode.OUTPUT) {
-				logger.warn("The Item '{}' wasn't configured as output item. It can't receive any commands!", itemName);
-				return; //If it is not a output Item, stop here				
+		GpioRemoteControlBindingProvider provider = findProvider(itemName); //Items are bound once, a second provider would send the command twice
+		if (provider == null) {
+			return;
+		}
+		if (provider.getConfig(itemName).configMode == ConfigMode.SCENE) {
+			ParsedCommand.Type type = commandParser.parse(command).getType();
+			if (type == ParsedCommand.Type.ON || type == ParsedCommand.Type.OFF) {
+				sendScene(provider, itemName, type == ParsedCommand.Type.ON);
+			} else {
+				logger.warn("GpioRemoteControl: Scene '{}' can only be switched ON or OFF, not {}", itemName, command);
 			}
-			try {
-				int pinNumber = provider.getConfig(itemName).pinConfiguration.getNumber();
-				PinConfiguration pinConf = null;
-				logger.debug("GpioRemoteControl: internalReceiveCommand: Event Auswahl folgt... " +
-						"ItemName: {}, Command: {}", itemName, command);
-				if(command == OnOffType.ON || command.toString().toLowerCase().equals("on")){
-					pinConf = new PinConfiguration(Event.SET, pinNumber, true);
-					provider.getConfig(itemName).pinConfiguration.setPwmValue(100);
-					
-				} else if (command == OnOffType.OFF || command.toString().toLowerCase().equals("off")){
-					pinConf = new PinConfiguration(Event.SET, pinNumber, false);
-					provider.getConfig(itemName).pinConfiguration.setPwmValue(0);
+			return;
+		}
+		if (provider.getConfig(itemName).configMode != ConfigMode.OUTPUT) {
+			logger.warn("The Item '{}' wasn't configured as output item. It can't receive any commands!", itemName);
+			return; //If it is not a output Item, stop here				
+		}
+		try {
+			int pinNumber = provider.getConfig(itemName).pinConfiguration.getNumber();
+			URI uriOfPin = provider.getConfig(itemName).getHostUri();
+			awaitFirstConnect(uriOfPin);
+			PinConfiguration pinConf = null;
+			logger.debug("GpioRemoteControl: internalReceiveCommand: Event Auswahl folgt... " +
+					"ItemName: {}, Command: {}", itemName, command);
+			ParsedCommand parsedCommand = commandParser.parse(command);
+			switch (parsedCommand.getType()) {
+			case ON:
+				pinConf = new PinConfiguration(Event.SET, pinNumber, true);
+				pinStates.set(uriOfPin, pinNumber, 100);
+				break;
 				
-				} else if (command.toString().toLowerCase().equals("toggle")){
-					pinConf = handleToggleCommand(provider, itemName, pinNumber, command);					
-					
-				} else if (command == IncreaseDecreaseType.INCREASE || command.toString().toLowerCase().equals("increase")){
-					provider.getConfig(itemName).pinConfiguration.setPwmValue(provider.getConfig(itemName).pinConfiguration.getPwmValue()+1);
-					pinConf = new PinConfiguration(Event.DIM, pinNumber, provider.getConfig(itemName).pinConfiguration.getPwmValue()+1);
-					
-				} else if (command == IncreaseDecreaseType.DECREASE || command.toString().toLowerCase().equals("decrease")){
-					provider.getConfig(itemName).pinConfiguration.setPwmValue(provider.getConfig(itemName).pinConfiguration.getPwmValue()-1);
-					pinConf = new PinConfiguration(Event.DIM, pinNumber, provider.getConfig(itemName).pinConfiguration.getPwmValue());	
-					
-				} else if (command.toString().toLowerCase().contains("dim_")){
-					String[] split = command.toString().split("_");
-					//Should be: 0:dim;1:pwmValue
-					pinConf = new PinConfiguration(Event.DIM, pinNumber, Integer.parseInt(split[1]));					
-					provider.getConfig(itemName).pinConfiguration.setPwmValue(Integer.parseInt(split[1])); //Save value of PWM
-					
-				} else if (command.toString().toLowerCase().contains("fade_")){
-					pinConf = handleEvent(provider, itemName, pinNumber, command, Event.FADE);
-					
-				} else if (command.toString().toLowerCase().contains("fadeupdown_")){
-					pinConf = handleEvent(provider, itemName, pinNumber, command, Event.FADE_UP_DOWN);
-					
-				} else if (command.toString().toLowerCase().contains("blink_")){
-					pinConf = handleBlinkEvent(provider, itemName, pinNumber, command);	
-					
-				} else {					
-					//parseable as Integer? 
-					int tempPwmVal = Integer.parseUnsignedInt(command.toString());
-					provider.getConfig(itemName).pinConfiguration.setPwmValue(tempPwmVal); //pinConfiguration.setPwmValue ensures the value is 0-100
-					pinConf = new PinConfiguration(Event.DIM, pinNumber, provider.getConfig(itemName).pinConfiguration.getPwmValue());
-				}
-								
-				URI uriOfPin = new URI("ws://" + provider.getConfig(itemName).getHostWithPort());
+			case OFF:
+				pinConf = new PinConfiguration(Event.SET, pinNumber, false);
+				pinStates.set(uriOfPin, pinNumber, 0);
+				break;
+			
+			case TOGGLE:
+				pinConf = handleToggleCommand(uriOfPin, pinNumber);					
+				break;
+				
+			case INCREASE:
+				pinConf = new PinConfiguration(Event.DIM, pinNumber, pinStates.add(uriOfPin, pinNumber, 1));
+				break;
+				
+			case DECREASE:
+				pinConf = new PinConfiguration(Event.DIM, pinNumber, pinStates.add(uriOfPin, pinNumber, -1));	
+				break;
+				
+			case DIM:
+				pinConf = new PinConfiguration(Event.DIM, pinNumber, pinStates.set(uriOfPin, pinNumber, parsedCommand.getPwmValue())); //The store limits the value to 0-100
+				break;
 				
-				provider.getClientMap().get(uriOfPin).send(gson.toJson(pinConf)); //Send Command to Remote GPIO Pin
-//				provider.getClientMap().get(uriOfPin).send(gson.toJson("{\"event\":\"TEMP\",\"deviceId\":\"28-00044a72b1ff\"}"));
-			} catch (IndexOutOfBoundsException e) {
+			case FADE:
+				pinConf = handleEvent(uriOfPin, pinNumber, parsedCommand, Event.FADE);
+				break;
+				
+			case FADE_UP_DOWN:
+				pinConf = handleEvent(uriOfPin, pinNumber, parsedCommand, Event.FADE_UP_DOWN);
+				break;
+				
+			case BLINK:
+				pinConf = handleBlinkEvent(uriOfPin, pinNumber, parsedCommand);	
+				break;
+				
+			default:
 				logger.warn("GpioRemoteControl: internalReceiveCommand: EventConfig not readable! Maybe wrong parameter in Sitemap? " +
 						"ItemName: {}, Command: {}", itemName, command);
-			} catch (URISyntaxException e) {
-				e.printStackTrace();
-			} catch (NumberFormatException e) {		
-			} catch (Exception e) {
-				e.printStackTrace();
+				return;
 			}
+			
+			DimCoalescer coalescer = dimCoalescer;
+			if (coalescer != null) {
+				coalescer.submit(uriOfPin, pinConf);
+			} else {
+				sendPinConfiguration(uriOfPin, pinConf);
+			}
+			HostMetrics hostMetrics = metrics.get(uriOfPin);
+			if (hostMetrics != null) {
+				hostMetrics.commandLatency.record(System.nanoTime() - start);
+			}
+		} catch (Exception e) {
+			logger.warn("GpioRemoteControl: internalReceiveCommand failed! ItemName: {}, Command: {}", itemName, command, e);
 		}
 	}	
 
-	private PinConfiguration handleToggleCommand(GpioRemoteControlBindingProvider provider, String itemName, int pinNumber, Command command) {
-		if (provider.getConfig(itemName).pinConfiguration.getPwmValue() < 100) {
-			provider.getConfig(itemName).pinConfiguration.setPwmValue(100);
-			return new PinConfiguration(Event.SET, pinNumber, true);
-		} else {
-			provider.getConfig(itemName).pinConfiguration.setPwmValue(0);
-			return new PinConfiguration(Event.SET, pinNumber, false);
-		}		
+	/**
+	 * Sends the command to the remote GPIO pin, batched with other commands to the same host
+	 * if batching is enabled. Commands to hosts which acknowledge them get a sequence id on
+	 * their first send.
+	 */
+	private void sendPinConfiguration(URI hostUri, PinConfiguration pinConf) {
+		HostConnection connection = getConnection(hostUri);
+		if (offlineQueue != null && connection != null && connection.getState() != HostConnection.State.OPEN) {
+			holdOffline(hostUri, pinConf);
+			return;
+		}
+		AckTracker tracker = ackTracker;
+		if (tracker != null && pinConf.getSeq() == 0 && ackHosts.contains(hostUri)) {
+			tracker.track(hostUri, pinConf); //A failed send is retried like a lost one
+		}
+		if (binaryHosts.contains(hostUri)) {
+			//Binary frames are a few bytes, they are not batched
+			if (!sendBinaryFrame(hostUri, connection, BinaryCodec.encode(pinConf))) {
+				logger.warn("GpioRemoteControl: No open connection to {}, {} command of pin {} dropped", hostUri, pinConf.getEvent(), pinConf.getNumber());
+			}
+			return;
+		}
+		submitFrame(hostUri, pinConf, pinConfigurationEncoder.encode(pinConf));
 	}
-
-	private PinConfiguration handleBlinkEvent(GpioRemoteControlBindingProvider provider, String itemName, int pinNumber, Command command) {
-		String[] split = command.toString().split("_");
-		//Should be: 0:blink;1:uptime;2:downtime;3:pwmValue;4:repeat;5:cycles
-		provider.getConfig(itemName).pinConfiguration.setPwmValue(0); //Save endVal of PWM
-		if(split.length == 2) { //Short version: Only uptime - one flash to 100%.
-			return new PinConfiguration(Event.BLINK, pinNumber, Integer.parseInt(split[1]), 1, 100, false, 0); //default values for no loop						
+	
+	/**
+	 * Holds the command until the host is connected again, if the offline queue is enabled.
+	 */
+	private void holdOffline(URI hostUri, PinConfiguration pinConf) {
+		OfflineQueue queue = offlineQueue;
+		HostConnection connection = getConnection(hostUri);
+		if (queue == null || connection == null) {
+			logger.warn("GpioRemoteControl: No open connection to {}, {} command of pin {} dropped", hostUri, pinConf.getEvent(), pinConf.getNumber());
+			return;
+		}
+		queue.hold(hostUri, pinConf);
+		if (connection.getState() == HostConnection.State.OPEN) {
+			flushOfflineQueue(hostUri); //Opened meanwhile, the flush on open may have missed the command
+		}
+	}
+	
+	/**
+	 * Switches the targets of a scene item. Every host gets one frame with all its commands,
+	 * the frames are handed to the connections one after the other without waiting for an
+	 * answer, so the hosts apply the scene at the same time. The state of the scene item is
+	 * updated once all hosts accepted it, see {@link SceneProgress}.
+	 */
+	private void sendScene(GpioRemoteControlBindingProvider provider, String itemName, boolean on) {
+		long start = System.nanoTime();
+		HostAndTempAndPinConfiguration config = provider.getConfig(itemName);
+		SceneProgress progress = new SceneProgress(itemName, on, sceneListener);
+		AckTracker tracker = ackTracker;
+		boolean acknowledged = false;
+		Map<URI, List<PinConfiguration>> frames = new LinkedHashMap<>();
+		for (Map.Entry<URI, Map<Integer, Integer>> host : config.sceneTargets.entrySet()) {
+			URI hostUri = host.getKey();
+			List<PinConfiguration> pinConfs = new ArrayList<>(host.getValue().size());
+			for (Map.Entry<Integer, Integer> target : host.getValue().entrySet()) {
+				int pwmValue = on ? target.getValue() : 0;
+				if (pwmValue == 0 || pwmValue == 100) {
+					pinConfs.add(new PinConfiguration(Event.SET, target.getKey(), pwmValue == 100));
+				} else {
+					pinConfs.add(new PinConfiguration(Event.DIM, target.getKey(), pwmValue));
+				}
+				pinStates.set(hostUri, target.getKey(), pwmValue); //TOGGLE and INCREASE start from the value of the scene
+			}
+			frames.put(hostUri, pinConfs);
+			boolean tracked = tracker != null && ackHosts.contains(hostUri);
+			acknowledged |= tracked;
+			progress.expect(hostUri, tracked ? pinConfs.size() : 1); //All hosts before the first send
+		}
+		for (URI hostUri : frames.keySet()) {
+			awaitFirstConnect(hostUri); //All hosts before the first send, so they still switch together
+		}
+		for (Map.Entry<URI, List<PinConfiguration>> frame : frames.entrySet()) {
+			sendScenePart(frame.getKey(), frame.getValue(), progress, tracker);
+			HostMetrics hostMetrics = metrics.get(frame.getKey());
+			if (hostMetrics != null) {
+				hostMetrics.commandLatency.record(System.nanoTime() - start);
+			}
+		}
+		if (acknowledged) {
+			expireScene(progress, ackTimeout * (ackRetries + 2)); //The last retry has timed out by then
+		}
+	}
+	
+	/**
+	 * Sends the commands held for the host while it was not connected in one burst. If the
+	 * connection is lost again meanwhile, they are held again.
+	 */
+	private void sendHeld(URI hostUri, List<PinConfiguration> pinConfs) {
+		HostConnection connection = getConnection(hostUri);
+		AckTracker tracker = ackTracker;
+		boolean tracked = tracker != null && ackHosts.contains(hostUri);
+		if (tracked) {
+			for (PinConfiguration pinConf : pinConfs) {
+				if (pinConf.getSeq() == 0) {
+					tracker.track(hostUri, pinConf); //A failed send is retried like a lost one
+				}
+			}
+		}
+		OfflineQueue queue = offlineQueue;
+		if (!sendBurst(hostUri, connection, pinConfs) && !tracked && queue != null) {
+			for (PinConfiguration pinConf : pinConfs) {
+				queue.hold(hostUri, pinConf); //Sent by the next connectionOpened
+			}
+		}
+	}
+	
+	/**
+	 * Sends the commands of a scene to one host as one frame, see {@link #sendBurst(URI, HostConnection, List)}.
+	 */
+	private void sendScenePart(URI hostUri, List<PinConfiguration> pinConfs, SceneProgress progress, AckTracker tracker) {
+		HostConnection connection = getConnection(hostUri);
+		if (connection == null || connection.getState() != HostConnection.State.OPEN) {
+			for (PinConfiguration pinConf : pinConfs) {
+				sendPinConfiguration(hostUri, pinConf); //Held for the reconnect, if enabled
+			}
+			progress.failed(hostUri);
+			return;
+		}
+		boolean tracked = tracker != null && ackHosts.contains(hostUri);
+		if (tracked) {
+			for (PinConfiguration pinConf : pinConfs) {
+				tracker.track(hostUri, pinConf);
+				sceneCommands.put(pinConf, progress);
+			}
+		}
+		boolean sent = sendBurst(hostUri, connection, pinConfs);
+		if (!tracked) { //Else the ACKs tell, a failed send is retried
+			if (sent) {
+				progress.accepted(hostUri);
+			} else {
+				progress.failed(hostUri);
+			}
+		}
+	}
+	
+	/**
+	 * Sends the commands to one host as one frame: an array frame, or concatenated records for
+	 * binary hosts. Hosts which don't understand arrays get single frames.
+	 * 
+	 * @return <code>false</code> if the connection is not open
+	 */
+	private boolean sendBurst(URI hostUri, HostConnection connection, List<PinConfiguration> pinConfs) {
+		boolean sent = true;
+		if (binaryHosts.contains(hostUri)) {
+			byte[][] records = new byte[pinConfs.size()][];
+			int length = 0;
+			for (int i = 0; i < records.length; i++) {
+				records[i] = BinaryCodec.encode(pinConfs.get(i));
+				length += records[i].length;
+			}
+			ByteBuffer message = ByteBuffer.allocate(length);
+			for (byte[] record : records) {
+				message.put(record);
+			}
+			sent = sendBinaryFrame(hostUri, connection, message.array());
+		} else if (pinConfs.size() == 1 || singleFrameHosts.contains(hostUri)) {
+			for (PinConfiguration pinConf : pinConfs) {
+				sent &= sendFrame(hostUri, pinConfigurationEncoder.encode(pinConf));
+			}
 		} else {
-			return new PinConfiguration(Event.BLINK, pinNumber, Integer.parseInt(split[1]), Integer.parseInt(split[2]), 
-					Integer.parseInt(split[3]), Boolean.parseBoolean(split[4]), Integer.parseInt(split[5]));						
-		}		
+			StringBuilder array = new StringBuilder(64 * pinConfs.size()).append('[');
+			for (int i = 0; i < pinConfs.size(); i++) {
+				if (i > 0) {
+					array.append(',');
+				}
+				array.append(pinConfigurationEncoder.encode(pinConfs.get(i)));
+			}
+			sent = sendFrame(hostUri, array.append(']').toString());
+		}
+		return sent;
 	}
-
-	private PinConfiguration handleEvent(GpioRemoteControlBindingProvider provider, String itemName, int pinNumber, Command command, Event event) {
-		String[] split = command.toString().split("_");
-		//Should be: 0:fade;1:cycleDuration;2:startVal;3:endVal;4:repeat;5:cycles;6:cyclePause
-		provider.getConfig(itemName).pinConfiguration.setPwmValue(Integer.parseInt(split[3])); //Save endVal of PWM
-		if(split.length == 4) { //Short version: If only cycleDuration and start- and EndValue given 
-			return new PinConfiguration(event, pinNumber, 
-				Integer.parseInt(split[1]), Integer.parseInt(split[2]), Integer.parseInt(split[3]), false, 0, 0); //default values for no loop
+	
+	private void expireScene(final SceneProgress progress, long delay) {
+		ScheduledExecutorService executor = scheduler;
+		if (executor == null) {
+			return;
+		}
+		executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				sceneCommands.values().removeAll(Collections.singleton(progress));
+				progress.expire();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Sends the binary message to the host.
+	 * 
+	 * @return <code>false</code> if the connection is not open
+	 */
+	private boolean sendBinaryFrame(URI hostUri, HostConnection connection, byte[] frame) {
+		HostMetrics hostMetrics = metrics.get(hostUri);
+		if (connection != null && connection.send(frame)) {
+			if (hostMetrics != null) {
+				hostMetrics.sent(frame.length);
+			}
+			return true;
+		}
+		if (hostMetrics != null) {
+			hostMetrics.sendFailed();
+		}
+		return false;
+	}
+	
+	/** Sends the frame of the command, batched if batching is enabled for the host. */
+	private void submitFrame(URI hostUri, PinConfiguration pinConf, String frame) {
+		FrameBatcher batcher = frameBatcher;
+		if (batcher != null && !singleFrameHosts.contains(hostUri)) {
+			batcher.submit(hostUri, pinConf, frame);
 		} else {
-			return new PinConfiguration(event, pinNumber, 
-				Integer.parseInt(split[1]), Integer.parseInt(split[2]), Integer.parseInt(split[3]), 
-				Boolean.parseBoolean(split[4]), Integer.parseInt(split[5]), Integer.parseInt(split[6]));
+			sendFrame(hostUri, frame);
 		}
 	}
+	
+	/**
+	 * Sends the frame to the host. Failures are logged, never thrown, because
+	 * this is also called from the scheduler.
+	 * 
+	 * @return <code>false</code> if the connection is not open
+	 */
+	private boolean sendFrame(URI hostUri, String frame) {
+		HostConnection connection = getConnection(hostUri);
+		HostMetrics hostMetrics = metrics.get(hostUri);
+		if (connection != null && connection.send(frame)) { //Send Command to Remote GPIO Pin
+			if (hostMetrics != null) {
+				hostMetrics.sent(HostMetrics.getUtf8Length(frame));
+			}
+			return true;
+		}
+		if (hostMetrics != null) {
+			hostMetrics.sendFailed();
+		}
+		logger.warn("GpioRemoteControl: No open connection to {}, frame dropped: {}", hostUri, frame);
+		return false;
+	}
+	
+	/**
+	 * Requests the readings of the sensors of the host in one frame, <code>{"event":"TEMP","deviceIds":[...]}</code>
+	 * or the binary TEMP request. The Pi answers with one TEMP frame per sensor or all of them in one array frame.
+	 * 
+	 * @return <code>false</code> if the host is not connected, then nothing is sent
+	 */
+	private boolean requestTemperatures(URI hostUri, List<String> deviceIds) {
+		HostConnection connection = getConnection(hostUri);
+		if (connection == null || connection.getState() != HostConnection.State.OPEN) {
+			return false;
+		}
+		logger.debug("GpioRemoteControl: Requesting {} temperatures of {}", deviceIds.size(), hostUri);
+		if (binaryHosts.contains(hostUri)) {
+			return sendBinaryFrame(hostUri, connection, BinaryCodec.encodeTemperatureRequest(deviceIds));
+		}
+		StringWriter frame = new StringWriter();
+		try {
+			JsonWriter json = new JsonWriter(frame);
+			json.beginObject().name("event").value(Event.TEMP.name()).name("deviceIds").beginArray();
+			for (String deviceId : deviceIds) {
+				json.value(deviceId);
+			}
+			json.endArray().endObject().close();
+		} catch (IOException e) { //Not thrown by a StringWriter
+			return false;
+		}
+		return sendFrame(hostUri, frame.toString());
+	}
+	
+	private HostConnection getConnection(URI hostUri) {
+		return connectionRegistry.get(hostUri);
+	}
+	
+	/**
+	 * @return the first provider which provides a binding for the item, <code>null</code> if none does
+	 */
+	private GpioRemoteControlBindingProvider findProvider(String itemName) {
+		for (GpioRemoteControlBindingProvider provider : providers) {
+			if (provider.providesBindingFor(itemName)) {
+				return provider;
+			}
+		}
+		return null;
+	}
+
+	private PinConfiguration handleToggleCommand(URI uriOfPin, int pinNumber) {
+		return new PinConfiguration(Event.SET, pinNumber, pinStates.toggle(uriOfPin, pinNumber) == 100);
+	}
+
+	private PinConfiguration handleBlinkEvent(URI uriOfPin, int pinNumber, ParsedCommand blink) {
+		pinStates.set(uriOfPin, pinNumber, 0); //Save endVal of PWM
+		return new PinConfiguration(Event.BLINK, pinNumber, blink.getUptime(), blink.getDowntime(), 
+				blink.getPwmValue(), blink.isRepeat(), blink.getCycles());
+	}
+
+	private PinConfiguration handleEvent(URI uriOfPin, int pinNumber, ParsedCommand fade, Event event) {
+		pinStates.set(uriOfPin, pinNumber, fade.getEndVal()); //Save endVal of PWM
+		return new PinConfiguration(event, pinNumber, 
+			fade.getCycleDuration(), fade.getStartVal(), fade.getEndVal(), 
+			fade.isRepeat(), fade.getCycles(), fade.getCyclePause());
+	}
 
 	/**
 	 * @{inheritDoc}
@@ -305,71 +1380,213 @@ public class GpioRemoteControlBinding extends AbstractActiveBinding<GpioRemoteCo
 //		logger.debug("internalReceiveUpdate({},{}) is called!", itemName, newState);
 	}	
 	
-	public void receiveServerMessage(String message){
-//		logger.debug(">>>>> GpioRemoteControl: receiveServerMessage!");
+	/**
+	 * Called by the reader thread of the client. The frame is buffered and handled
+	 * by the dispatcher thread in {@link #receiveServerMessage(URI, String)}.
+	 */
+	void frameReceived(URI hostUri, Object message) {
+		HostMetrics hostMetrics = metrics.get(hostUri);
+		if (hostMetrics == null) {
+			logger.debug("GpioRemoteControl: Frame of removed host {} dropped", hostUri);
+			return;
+		}
+		hostMetrics.received(message instanceof byte[] ? ((byte[]) message).length : HostMetrics.getUtf8Length((String) message));
+		InboundDispatcher dispatcher = inboundDispatcher;
+		if (dispatcher != null) {
+			dispatcher.enqueue(hostUri, message);
+		}
+	}
+	
+	/**
+	 * Only asked by the {@link InboundDispatcher} if the buffer of a host is full, on the reader thread.
+	 * 
+	 * @return the device id if the frame is the reading of one temperature sensor, otherwise <code>null</code>
+	 */
+	private Object getSensorKey(Object message) {
+		ServerMessageDecoder decoder = decoders.get();
 		try {
-			parseAndUpdatePinInput(message); // NOT TESTED YET, NO INPUT PIN AVAILABLE //	
-		} catch (Exception e) {
-			e.printStackTrace();
-		}		
-		
-		try { 
-			parseAndUpdateTemperature(message);
-		} catch (Exception e) {
-			e.printStackTrace();
+			if (message instanceof byte[]) {
+				ByteBuffer buffer = ByteBuffer.wrap((byte[]) message);
+				if (BinaryCodec.peekEvent(buffer) != Event.TEMP) {
+					return null;
+				}
+				String deviceId = BinaryCodec.decodeTemperature(buffer, decoder.getTemperature()).getDeviceId();
+				return buffer.hasRemaining() ? null : deviceId; //Several records
+			}
+			if (decoder.decode((String) message) == ServerMessageDecoder.MessageType.TEMPERATURE) {
+				return decoder.getTemperature().getDeviceId();
+			}
+		} catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+			//Not readable, the dispatcher reports it
 		}
+		return null;
 	}
 	
-	// METHOD NOT TESTED YET //
-	private void parseAndUpdatePinInput(String message) {
-		PinInput pinConfig = gson.fromJson(message, PinInput.class);
-		if (pinConfig.getNumber() != -1) { //Was successfully parsed 
-			if (providers.iterator().next().getConfig(getItemNameByPinNumber(pinConfig.getNumber())).configMode == ConfigMode.INPUT) {
-				logger.debug("GpioRemoteControl: receiveServerMessage: PinConfig: {}, {}", pinConfig.getNumber(), pinConfig.getIsHigh());
-				providers.iterator().next().getConfig(getItemNameByPinNumber(pinConfig.getNumber())).pinInput = pinConfig; //Replace pinConfiguration with received config
-				if (pinConfig.getIsHigh()) {
-					eventPublisher.postUpdate(getItemNameByPinNumber(pinConfig.getNumber()), OnOffType.ON);
-				} else {
-					eventPublisher.postUpdate(getItemNameByPinNumber(pinConfig.getNumber()), OnOffType.OFF);
+	/**
+	 * Posts the update to the event bus and records how long that took.
+	 */
+	private void postUpdate(URI hostUri, String itemName, State state) {
+		long start = System.nanoTime();
+		eventPublisher.postUpdate(itemName, state);
+		HostMetrics hostMetrics = metrics.get(hostUri);
+		if (hostMetrics != null) {
+			hostMetrics.publishLatency.record(System.nanoTime() - start);
+		}
+	}
+	
+	private void recordParseTime(HostMetrics hostMetrics, long start) {
+		if (hostMetrics != null) {
+			hostMetrics.parseTime.record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Handles a binary message, which may hold several records.
+	 */
+	private void receiveBinaryMessage(URI hostUri, byte[] message) {
+		ServerMessageDecoder decoder = decoders.get();
+		HostMetrics hostMetrics = metrics.get(hostUri); //null if the host was removed meanwhile
+		ByteBuffer buffer = ByteBuffer.wrap(message);
+		try {
+			while (buffer.hasRemaining()) {
+				long start = System.nanoTime();
+				switch (BinaryCodec.peekEvent(buffer)) {
+				case INPUT:
+					PinInput pinInput = BinaryCodec.decodePinInput(buffer, decoder.getPinInput());
+					recordParseTime(hostMetrics, start);
+					updatePinInput(hostUri, pinInput);
+					break;
+				case TEMP:
+					Temperature temperature = BinaryCodec.decodeTemperature(buffer, decoder.getTemperature());
+					recordParseTime(hostMetrics, start);
+					updateTemperature(hostUri, temperature);
+					break;
+				case ACK:
+					int seq = BinaryCodec.decodeAck(buffer);
+					recordParseTime(hostMetrics, start);
+					acknowledged(hostUri, seq);
+					break;
+				default:
+					logger.debug("GpioRemoteControl: receiveBinaryMessage: Unexpected {} record from {}", BinaryCodec.peekEvent(buffer), hostUri);
+					return; //The length of other records is not known here
 				}
 			}
+		} catch (IllegalArgumentException | BufferUnderflowException e) {
+			logger.warn("GpioRemoteControl: receiveBinaryMessage: Message of {} not readable: {}", hostUri, e.toString());
 		}
 	}
 	
-	private void parseAndUpdateTemperature(String message) {
-//		logger.debug("GpioRemoteControl: parseAndUpdateTemperature.");
-		Temperature tempConfig = gson.fromJson(message, Temperature.class);
-		if (tempConfig.getDeviceId() != "") { //Was successfully parsed		
-//			logger.debug("GpioRemoteControl: receiveServerMessage: TemperatureConfig: {}, {}, {}", tempConfig.getDeviceId(), tempConfig.getTemperature(), getItemNameByTemperatureDeviceId(tempConfig.getDeviceId()));
-			if (providers.iterator().next().getConfig(getItemNameByTemperatureDeviceId(tempConfig.getDeviceId())).configMode == ConfigMode.TEMPERATURE) {				
-				providers.iterator().next().getConfig(getItemNameByTemperatureDeviceId(tempConfig.getDeviceId())).temperature = tempConfig;
-				Float temperatureRaw = (float) (tempConfig.getTemperature());
-				Float temperature = temperatureRaw/1000; //Received value is like 22500 for 22,5°C 
-//				logger.debug("GpioRemoteControl: parseAndUpdateTemperature: {}", temperature.toString());
-				eventPublisher.postUpdate(getItemNameByTemperatureDeviceId(tempConfig.getDeviceId()), DecimalType.valueOf(temperature.toString()));				
+	public void receiveServerMessage(URI hostUri, String message){
+//		logger.debug(">>>>> GpioRemoteControl: receiveServerMessage!");
+		ServerMessageDecoder decoder = decoders.get();
+		try {
+			long start = System.nanoTime();
+			ServerMessageDecoder.MessageType type = decoder.decode(message);
+			recordParseTime(metrics.get(hostUri), start);
+			switch (type) {
+			case PIN_INPUT:
+				updatePinInput(hostUri, decoder.getPinInput()); // NOT TESTED YET, NO INPUT PIN AVAILABLE //
+				break;
+			case TEMPERATURE:
+				updateTemperature(hostUri, decoder.getTemperature());
+				break;
+			case TEMPERATURE_BATCH:
+				for (Temperature temperature : decoder.getTemperatures()) {
+					updateTemperature(hostUri, temperature);
+				}
+				break;
+			case ACK:
+				acknowledged(hostUri, decoder.getAckSeq());
+				break;
+			default:
+				logger.debug("GpioRemoteControl: receiveServerMessage: Unknown message from {}: {}", hostUri, message);
+				break;
 			}
+		} catch (IOException e) {
+			logger.warn("GpioRemoteControl: receiveServerMessage: Message of {} not readable: {}", hostUri, message);
+		}
+	}
+	
+	private void acknowledged(URI hostUri, int seq) {
+		AckTracker tracker = ackTracker;
+		if (tracker == null || !tracker.acknowledged(hostUri, seq)) {
+			logger.debug("GpioRemoteControl: Unexpected ACK {} from {}", seq, hostUri);
 		}
 	}
 	
-	private String getItemNameByPinNumber(int pinNumber){
+	// METHOD NOT TESTED YET //
+	private void updatePinInput(URI hostUri, PinInput pinInput) {
 		for (GpioRemoteControlBindingProvider provider : providers) {
-			for (String itemName : provider.getItemNames()) {
-				if(provider.getConfig(itemName).pinConfiguration.getNumber() == pinNumber){
-					return itemName;
+			String itemName = provider.getItemNameByPinNumber(hostUri, pinInput.getNumber());
+			if (itemName == null) {
+				continue;
+			}
+			HostAndTempAndPinConfiguration config = provider.getConfig(itemName);
+			if (config.configMode == ConfigMode.INPUT) {
+				logger.debug("GpioRemoteControl: receiveServerMessage: PinConfig: {}, {}", pinInput.getNumber(), pinInput.getIsHigh());
+				config.pinInput.setIsHigh(pinInput.getIsHigh()); //Copy, the decoder reuses pinInput
+				config.pinInput.setTimeSinceLastChange(pinInput.getTimeSinceLastChange());
+				InputDebouncer debouncer = inputDebouncer;
+				if (debouncer != null && config.pinConfiguration.getDebounce() > 0) {
+					debouncer.submit(itemName, config, pinInput.getIsHigh(), pinInput.getTimeSinceLastChange());
+				} else {
+					postUpdate(hostUri, itemName, pinInput.getIsHigh() ? OnOffType.ON : OnOffType.OFF);
 				}
-			}		
+			}
+			return;
 		}
-		return "ItemNotFound in getItemName in gpioRemoteControl Pin";
+		logger.debug("GpioRemoteControl: No item bound to pin {} of {}", pinInput.getNumber(), hostUri);
 	}
 	
-	private String getItemNameByTemperatureDeviceId(String deviceId){
+	private void updateTemperature(URI hostUri, Temperature temperature) {
+		TemperaturePoller poller = temperaturePoller;
+		if (poller != null) {
+			poller.reading(hostUri, temperature.getDeviceId(), temperature.getTemperature(), System.currentTimeMillis());
+		}
 		for (GpioRemoteControlBindingProvider provider : providers) {
-			for (String itemName : provider.getItemNames()) {
-				if(provider.getConfig(itemName).temperature.getDeviceId().equals(deviceId)){	
-					return itemName;
+			String itemName = provider.getItemNameByTemperatureDeviceId(hostUri, temperature.getDeviceId());
+			if (itemName == null) {
+				continue;
+			}
+			HostAndTempAndPinConfiguration config = provider.getConfig(itemName);
+			if (config.configMode == ConfigMode.TEMPERATURE) {				
+				config.temperature.setName(temperature.getName()); //Copy, the decoder reuses temperature
+				config.temperature.setTimeStamp(temperature.getTimeStamp());
+				config.temperature.setTemperature(temperature.getTemperature());
+				TemperatureFilter filter = getTemperatureFilter(hostUri, itemName, config);
+				if (filter != null) {
+					filter.accept(temperature.getTemperature(), System.currentTimeMillis());
 				}
-			}		
+			}
+			return;
+		}
+		logger.debug("GpioRemoteControl: No item bound to temperature sensor {} of {}", temperature.getDeviceId(), hostUri);
+	}
+
+	/**
+	 * @return the filter of the item, a new one if the item is new or was reconfigured,
+	 *         <code>null</code> if the binding is not active
+	 */
+	private TemperatureFilter getTemperatureFilter(final URI hostUri, final String itemName, HostAndTempAndPinConfiguration config) {
+		TemperatureFilter filter = temperatureFilters.get(itemName);
+		if (filter != null && filter.getConfig() == config) {
+			return filter;
+		}
+		ScheduledExecutorService executor = scheduler;
+		if (executor == null) {
+			return null;
+		}
+		TemperatureFilter created = new TemperatureFilter(config, executor, new TemperatureFilter.Publisher() {
+			@Override
+			public void publish(int value) {
+				//Received value is like 22500 for 22,5°C
+				postUpdate(hostUri, itemName, new DecimalType(BigDecimal.valueOf(value, 3)));
+			}
+		});
+		temperatureFilters.put(itemName, created);
+		if (filter != null) {
+			filter.stop();
 		}
-		return "ItemNotFound in getItemName in gpioRemoteControl Temperature";
+		return created;
 	}
 }
@@ -10,14 +10,20 @@ package org.openhab.binding.gpioremotecontrol.internal;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.TreeMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import home.control.model.HostAndTempAndPinConfiguration;
+import home.control.model.HostAndTempAndPinConfiguration.Aggregation;
 import home.control.model.HostAndTempAndPinConfiguration.ConfigMode;
 import home.control.model.Temperature;
 
-import org.java_websocket.client.WebSocketClient;
-import org.java_websocket.handshake.ServerHandshake;
 import org.openhab.binding.gpioremotecontrol.GpioRemoteControlBindingProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.library.items.DimmerItem;
@@ -30,8 +36,6 @@ import org.openhab.model.item.binding.BindingConfigParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.sun.xml.internal.ws.assembler.jaxws.MustUnderstandTubeFactory;
-
 
 /**
  * This class is responsible for parsing the binding configuration.
@@ -44,7 +48,14 @@ public class GpioRemoteControlGenericBindingProvider extends AbstractGenericBind
 	private static final Logger logger = 
 			LoggerFactory.getLogger(GpioRemoteControlGenericBindingProvider.class);
 	
-	private TreeMap<URI, Client> clientMap = new TreeMap<>();
+	/** Shared with the binding and the other providers, which may use the same hosts */
+	private final ConnectionRegistry connectionRegistry = ConnectionRegistry.getInstance();
+	
+	/** Index host -> pin number -> item name, maintained on every (re)configuration of an item */
+	private ConcurrentMap<URI, ConcurrentMap<Integer, String>> itemNamesByPin = new ConcurrentHashMap<>();
+	
+	/** Index host -> 1-Wire device id -> item name, maintained on every (re)configuration of an item */
+	private ConcurrentMap<URI, ConcurrentMap<String, String>> itemNamesByDeviceId = new ConcurrentHashMap<>();
 	
 	/**
 	 * {@inheritDoc}
@@ -81,49 +92,279 @@ public class GpioRemoteControlGenericBindingProvider extends AbstractGenericBind
 		/*
 		 * 123.123.123.31:1234;1;out
 		 * 123.123.123.31:1234;2;in
+		 * 123.123.123.31:1234;2;in;debounce=50
 		 * 123.123.123.31:1234;28-00044a7273ff;temperature
+		 * 123.123.123.31:1234;28-00044a7273ff;temperature;deadband=0.2;minInterval=60000;aggregate=avg;window=300000
+		 * scene;123.123.123.31:1234/1=100/2=30;123.123.123.32:1234/5=on
 		 */
 		String[] properties = bindingConfig.split(";");
+		if (properties[0].trim().toLowerCase().equals("scene")) {
+			config.configMode = ConfigMode.SCENE;
+			parseSceneTargets(item, config, properties);
+			logger.debug("GpioRemoteControl: processBindingConfiguration: scene {} with {} hosts", item.getName(), config.sceneTargets.size());
+			HostAndTempAndPinConfiguration previous = removeFromIndex(item.getName());
+			addBindingConfig(item, config);
+			handleWebsocketConnections(config, previous);
+			return;
+		}
+
 		config.setHostWithPort(properties[0]);
+		try {
+			config.setHostUri(new URI("ws://" + properties[0]));
+		} catch (URISyntaxException e) {
+			throw new BindingConfigParseException("item '" + item.getName() + "' has an invalid host '" + properties[0] + "'");
+		}
 		
 		if(properties[2].toLowerCase().equals("temperature")){ //Is temperature config
 			config.configMode = ConfigMode.TEMPERATURE;
 			config.temperature.setDeviceId(properties[1]);
+			parseTemperatureOptions(item, config, properties);
 		} else {			
 			if (properties[2].toLowerCase().equals("out")) {
 				config.configMode = ConfigMode.OUTPUT;
 				config.pinConfiguration.setNumber(Integer.parseInt(properties[1])); //Configure pinConfiguration Number. It's not -1 anymore, so it must be output.
+				if (config.pinConfiguration.getNumber() < 0 || config.pinConfiguration.getNumber() >= PinStateStore.PINS) {
+					throw new BindingConfigParseException("item '" + item.getName() + "' has the invalid output pin " + properties[1]
+							+ ", allowed is 0-" + (PinStateStore.PINS - 1));
+				}
 			} else {
 				config.configMode = ConfigMode.INPUT;
 				config.pinInput.setNumber(Integer.parseInt(properties[1])); //Same here, must be "PinInput"
+				parseInputOptions(item, config, properties);
 			}
 		}
 		
 		
 		//parse bindingconfig here ...
 		logger.debug("GpioRemoteControl: processBindingConfiguration({},{}) is called!", config.pinConfiguration.getNumber(), config.getHostWithPort());		
+		HostAndTempAndPinConfiguration previous = removeFromIndex(item.getName()); //The item may have been configured before with another host or pin
 		addBindingConfig(item, config);		
-		handleWebsocketConnections(config);
+		addToIndex(item.getName(), config);
+		handleWebsocketConnections(config, previous);
+	}
+	
+	/**
+	 * Parses the optional <code>key=value</code> properties of a temperature item, which
+	 * follow the first three properties.
+	 */
+	private void parseTemperatureOptions(Item item, HostAndTempAndPinConfiguration config, String[] properties) throws BindingConfigParseException {
+		for (int i = 3; i < properties.length; i++) {
+			String[] option = properties[i].split("=", 2);
+			String key = option[0].trim().toLowerCase();
+			try {
+				if (option.length != 2) {
+					throw new IllegalArgumentException();
+				} else if (key.equals("deadband")) {
+					config.temperatureDeadband = Math.round(Float.parseFloat(option[1]) * 1000); //°C to the 1/1000 °C the server sends
+				} else if (key.equals("mininterval")) {
+					config.temperatureMinInterval = Long.parseLong(option[1]);
+				} else if (key.equals("aggregate")) {
+					config.temperatureAggregation = Aggregation.valueOf(option[1].trim().toUpperCase());
+				} else if (key.equals("window")) {
+					config.temperatureWindow = Long.parseLong(option[1]);
+				} else {
+					throw new IllegalArgumentException();
+				}
+			} catch (IllegalArgumentException e) { //Also NumberFormatException
+				throw new BindingConfigParseException("item '" + item.getName() + "' has an invalid temperature option '" + properties[i]
+						+ "', allowed are deadband=<°C>, minInterval=<ms>, aggregate=min|max|avg and window=<ms>");
+			}
+		}
+		if (config.temperatureAggregation != Aggregation.NONE && config.temperatureWindow <= 0) {
+			throw new BindingConfigParseException("item '" + item.getName() + "' needs a window=<ms> for aggregate=" 
+					+ config.temperatureAggregation.name().toLowerCase());
+		}
+	}
+	
+	/**
+	 * Parses the targets of a scene item, one property per host: <code>host:port/pin=value/pin=value</code>.
+	 * The value is the PWM value 0-100, <code>on</code> or <code>off</code>.
+	 */
+	private void parseSceneTargets(Item item, HostAndTempAndPinConfiguration config, String[] properties) throws BindingConfigParseException {
+		if (!(item instanceof SwitchItem)) {
+			throw new BindingConfigParseException("item '" + item.getName() + "' is a scene, only SwitchItems are allowed for scenes");
+		}
+		for (int i = 1; i < properties.length; i++) {
+			String[] targets = properties[i].trim().split("/");
+			URI hostUri;
+			try {
+				hostUri = new URI("ws://" + targets[0]);
+			} catch (URISyntaxException e) {
+				throw new BindingConfigParseException("item '" + item.getName() + "' has an invalid host '" + targets[0] + "'");
+			}
+			Map<Integer, Integer> pins = config.sceneTargets.get(hostUri);
+			if (pins == null) {
+				pins = new LinkedHashMap<>();
+				config.sceneTargets.put(hostUri, pins);
+			}
+			for (int j = 1; j < targets.length; j++) {
+				String[] target = targets[j].split("=", 2);
+				try {
+					int pwmValue;
+					if (target.length != 2) {
+						throw new IllegalArgumentException();
+					} else if (target[1].trim().toLowerCase().equals("on")) {
+						pwmValue = 100;
+					} else if (target[1].trim().toLowerCase().equals("off")) {
+						pwmValue = 0;
+					} else {
+						pwmValue = Integer.parseInt(target[1].trim());
+					}
+					int pinNumber = Integer.parseInt(target[0].trim());
+					if (pwmValue < 0 || pwmValue > 100 || pinNumber < 0 || pinNumber >= PinStateStore.PINS) {
+						throw new IllegalArgumentException();
+					}
+					pins.put(pinNumber, pwmValue);
+				} catch (IllegalArgumentException e) { //Also NumberFormatException
+					throw new BindingConfigParseException("item '" + item.getName() + "' has an invalid scene target '" + targets[j]
+							+ "' of host " + targets[0] + ", allowed is <pin>=<0-100>|on|off");
+				}
+			}
+			if (pins.isEmpty()) {
+				throw new BindingConfigParseException("item '" + item.getName() + "' has no pins for host " + targets[0]);
+			}
+		}
+		if (config.sceneTargets.isEmpty()) {
+			throw new BindingConfigParseException("item '" + item.getName() + "' is a scene without hosts");
+		}
+	}
+	
+	/**
+	 * Parses the optional <code>key=value</code> properties of an input item, which
+	 * follow the first three properties.
+	 */
+	private void parseInputOptions(Item item, HostAndTempAndPinConfiguration config, String[] properties) throws BindingConfigParseException {
+		for (int i = 3; i < properties.length; i++) {
+			String[] option = properties[i].split("=", 2);
+			try {
+				if (option.length != 2 || !option[0].trim().toLowerCase().equals("debounce")) {
+					throw new IllegalArgumentException();
+				}
+				config.pinConfiguration.setDebounce(Integer.parseInt(option[1].trim())); //Unused by inputs otherwise
+				if (config.pinConfiguration.getDebounce() < 0) {
+					throw new IllegalArgumentException();
+				}
+			} catch (IllegalArgumentException e) { //Also NumberFormatException
+				throw new BindingConfigParseException("item '" + item.getName() + "' has an invalid input option '" + properties[i]
+						+ "', allowed is debounce=<ms>");
+			}
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeConfigurations(String context) {
+		Set<Item> items = contextMap.get(context);
+		if (items != null) {
+			Set<String> itemNames = new HashSet<>(); //Release every item once
+			for (Item item : items) {
+				if (!itemNames.add(item.getName())) {
+					continue;
+				}
+				HostAndTempAndPinConfiguration config = removeFromIndex(item.getName());
+				if (config != null) {
+					for (URI hostUri : getHosts(config)) {
+						connectionRegistry.release(hostUri); //Removed by the binding, unless the item comes back
+					}
+				}
+			}
+		}
+		super.removeConfigurations(context);
 	}
 	
 	/* ================================= SELF WRITTEN METHODS - BEGIN ===============================*/
 	
-	private void handleWebsocketConnections(HostAndTempAndPinConfiguration config) {		
+	/**
+	 * Counts the item as user of the hosts of its config. The hosts of its previous config are
+	 * released after that, so a host which stays the same keeps its connection.
+	 */
+	private void handleWebsocketConnections(HostAndTempAndPinConfiguration config, HostAndTempAndPinConfiguration previous) {		
 		logger.debug("GpioRemoteControl: handleWebsocketConnections ({},{}) is called!", config.pinConfiguration.getNumber(), config.getHostWithPort());
-		try {			
-			URI uri = new URI("ws://" + config.getHostWithPort());
-			if (!clientMap.containsKey(uri)) { //If the connection is not already set up, start one...
-				clientMap.put(uri, null);
-			}						
-		} catch (URISyntaxException e) {
-			logger.debug("GpioRemoteControl: handleWebsocketConnections URISyntaxException ({},{})", config.getHostWithPort(), config.pinConfiguration.getNumber());
-			e.printStackTrace();
-		} catch (Exception e) {
-			logger.debug("GpioRemoteControl: handleWebsocketConnections Exception ({},{})", config.getHostWithPort(), config.pinConfiguration.getNumber());
-			e.printStackTrace();
+		for (URI hostUri : getHosts(config)) {
+			connectionRegistry.acquire(hostUri); //If the connection is not already set up, register it. The binding connects it.
 		}
-		
-		
+		if (previous != null) {
+			for (URI hostUri : getHosts(previous)) {
+				connectionRegistry.release(hostUri);
+			}
+		}
+	}
+	
+	private Collection<URI> getHosts(HostAndTempAndPinConfiguration config) {
+		return config.configMode == ConfigMode.SCENE ? config.sceneTargets.keySet() : Collections.singleton(config.getHostUri());
+	}
+
+	private void addToIndex(String itemName, HostAndTempAndPinConfiguration config) {
+		URI hostUri = config.getHostUri();
+		switch (config.configMode) {
+		case TEMPERATURE:
+			ConcurrentMap<String, String> devices = itemNamesByDeviceId.get(hostUri);
+			if (devices == null) {
+				itemNamesByDeviceId.putIfAbsent(hostUri, new ConcurrentHashMap<String, String>());
+				devices = itemNamesByDeviceId.get(hostUri);
+			}
+			devices.put(config.temperature.getDeviceId(), itemName);
+			break;
+		default:
+			ConcurrentMap<Integer, String> pins = itemNamesByPin.get(hostUri);
+			if (pins == null) {
+				itemNamesByPin.putIfAbsent(hostUri, new ConcurrentHashMap<Integer, String>());
+				pins = itemNamesByPin.get(hostUri);
+			}
+			pins.put(getPinNumber(config), itemName);
+			break;
+		}
+	}
+	
+	/**
+	 * Removes the index entries of the item, if it is configured. Entries which were already
+	 * taken over by another item are left untouched.
+	 * 
+	 * @return the config of the item, <code>null</code> if it is not configured
+	 */
+	private HostAndTempAndPinConfiguration removeFromIndex(String itemName) {
+		HostAndTempAndPinConfiguration config = (HostAndTempAndPinConfiguration) bindingConfigs.get(itemName);
+		if (config == null) {
+			return null;
+		}
+		if (config.configMode == ConfigMode.SCENE) {
+			return config; //Scenes are not indexed, they receive nothing
+		} else if (config.configMode == ConfigMode.TEMPERATURE) {
+			ConcurrentMap<String, String> devices = itemNamesByDeviceId.get(config.getHostUri());
+			if (devices != null) {
+				devices.remove(config.temperature.getDeviceId(), itemName);
+			}
+		} else {
+			ConcurrentMap<Integer, String> pins = itemNamesByPin.get(config.getHostUri());
+			if (pins != null) {
+				pins.remove(getPinNumber(config), itemName);
+			}
+		}
+		return config;
+	}
+	
+	private int getPinNumber(HostAndTempAndPinConfiguration config) {
+		return config.configMode == ConfigMode.INPUT ? config.pinInput.getNumber() : config.pinConfiguration.getNumber();
+	}
+	
+	@Override
+	public String getItemNameByPinNumber(URI hostUri, int pinNumber) {
+		ConcurrentMap<Integer, String> pins = itemNamesByPin.get(hostUri);
+		return pins == null ? null : pins.get(pinNumber);
+	}
+	
+	@Override
+	public String getItemNameByTemperatureDeviceId(URI hostUri, String deviceId) {
+		ConcurrentMap<String, String> devices = itemNamesByDeviceId.get(hostUri);
+		return devices == null ? null : devices.get(deviceId);
+	}
+	
+	@Override
+	public Collection<String> getTemperatureDeviceIds(URI hostUri) {
+		ConcurrentMap<String, String> devices = itemNamesByDeviceId.get(hostUri);
+		return devices == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(devices.keySet());
 	}
 
 	@Override
@@ -133,11 +374,6 @@ public class GpioRemoteControlGenericBindingProvider extends AbstractGenericBind
 		return config;
 	}
 		
-	@Override
-	public TreeMap<URI, Client> getClientMap() {
-		return clientMap;
-	}
-	
 	/**
 	 * Simply throws an {@link IllegalArgumentException}, if the given config is null. 
 	 * 
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.FramedataImpl1;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds hosts which stopped answering. A Pi which lost its power leaves a half open TCP
+ * connection, which still reports OPEN until the OS gives up after many minutes.
+ * <p>
+ * Every open connection gets a WebSocket ping per interval, which every server answers with
+ * a pong. Any frame of the host counts as a sign of life. A connection which was silent for
+ * longer than the timeout is reported dead. The ping carries its send time, so the pong gives
+ * the round trip time.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class HeartbeatMonitor implements Runnable {
+
+	private static final Logger logger = LoggerFactory.getLogger(HeartbeatMonitor.class);
+
+	interface Listener {
+		/** The host didn't send anything for the given time in ms */
+		void silent(HostConnection connection, HostClient client, long silence);
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final long interval;
+	private final long timeout;
+	private final ConnectionRegistry registry;
+	private final Listener listener;
+	private ScheduledFuture<?> task;
+
+	/**
+	 * @param scheduler sends the pings
+	 * @param interval time in ms between two pings to a host
+	 * @param timeout time in ms after which a silent host is reported
+	 * @param registry the connections to watch
+	 * @param listener gets the silent hosts
+	 */
+	HeartbeatMonitor(ScheduledExecutorService scheduler, long interval, long timeout, ConnectionRegistry registry, Listener listener) {
+		this.scheduler = scheduler;
+		this.interval = interval;
+		this.timeout = timeout;
+		this.registry = registry;
+		this.listener = listener;
+	}
+
+	void start() {
+		task = scheduler.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	void stop() {
+		if (task != null) {
+			task.cancel(false);
+		}
+	}
+
+	@Override
+	public void run() {
+		for (HostConnection connection : registry.getConnections()) {
+			if (connection.getState() != HostConnection.State.OPEN) {
+				continue;
+			}
+			HostClient client = connection.getClient();
+			long silence = connection.getSilence();
+			if (silence > timeout) {
+				listener.silent(connection, client, silence);
+				continue;
+			}
+			try {
+				client.ping(System.nanoTime());
+			} catch (RuntimeException e) { //Closed meanwhile
+				logger.debug("GpioRemoteControl: Ping to {} failed: {}", connection.getHostUri(), e.toString());
+			}
+		}
+	}
+
+	/**
+	 * @return a ping frame with the send time as payload
+	 */
+	static Framedata createPing(long nanos) {
+		FramedataImpl1 ping = new FramedataImpl1(Framedata.Opcode.PING);
+		ping.setFin(true);
+		ByteBuffer payload = ByteBuffer.allocate(8);
+		payload.putLong(nanos).flip();
+		try {
+			ping.setPayload(payload);
+		} catch (InvalidDataException e) {
+			throw new IllegalStateException(e); //Only thrown for text frames
+		}
+		return ping;
+	}
+
+	/**
+	 * @return the send time of the ping the pong answers, -1 if it is not one of ours
+	 */
+	static long getPingTime(Framedata pong) {
+		ByteBuffer payload = pong.getPayloadData();
+		return payload.remaining() == 8 ? payload.getLong(payload.position()) : -1;
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.nio.channels.NotYetConnectedException;
+
+/**
+ * One WebSocket connection attempt to a host, behind a {@link HostConnection}. A new one is
+ * created for every reconnect. It reports to the binding by <code>connectionOpened</code>,
+ * <code>connectionLost</code>, <code>frameReceived</code> and <code>pongReceived</code>.
+ * <ul>
+ * <li>{@link Client} runs its own thread per connection.
+ * <li>{@link SelectorClient} is driven by the few threads of a shared {@link SelectorTransport}.
+ * </ul>
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+interface HostClient {
+
+	/** Starts to connect, never blocks */
+	void connect();
+
+	/** Closes the connection or stops the connect */
+	void close();
+
+	/**
+	 * Drops the connection at once, without the close handshake, e.g. because the host
+	 * stopped answering. Reports the connection as lost.
+	 */
+	void abort();
+
+	/** Sends a WebSocket ping, the pong is reported by <code>pongReceived</code> */
+	void ping(long nanos);
+
+	void send(String frame) throws NotYetConnectedException;
+
+	void send(byte[] frame) throws NotYetConnectedException;
+
+	/** @return one of the <code>READY_STATE</code> constants of <code>WebSocket</code> */
+	int getReadyState();
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Handle of the connection to one host. The {@link HostClient} behind it is replaced on
+ * every reconnect, the handle stays the same. All state changes are atomic, so the
+ * refresh thread, the event bus threads and the WebSocket threads can use a handle
+ * concurrently without locks:
+ * <pre>
+ * NEW/WAITING --connecting--> CONNECTING --opened--> OPEN --failed--> WAITING
+ * CONNECTING --failed--> WAITING
+ * any but CLOSED --reset--> NEW
+ * any --close--> CLOSED (final)
+ * </pre>
+ * Callbacks of a client which was already replaced are ignored. The state and its client
+ * are swapped together, so a late callback of the replaced client can't hit the new one.
+ * <p>
+ * The connection is settled once its first connect opened or failed. Until then, commands
+ * may wait for it by {@link #awaitSettled(long)}.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public class HostConnection {
+
+	public enum State {
+		NEW, CONNECTING, OPEN, WAITING, CLOSED
+	}
+
+	/**
+	 * The state and the client it belongs to.
+	 */
+	private static final class Link {
+		final State state;
+		final HostClient client;
+
+		Link(State state, HostClient client) {
+			this.state = state;
+			this.client = client;
+		}
+	}
+
+	private final URI hostUri;
+	private final AtomicReference<Link> link = new AtomicReference<>(new Link(State.NEW, null));
+	private final AtomicInteger failures = new AtomicInteger();
+	private volatile long stateSince = System.currentTimeMillis();
+	private volatile long createdAt = stateSince;
+	private volatile CountDownLatch settled = new CountDownLatch(1);
+	/** The last time the current client received anything, see {@link HeartbeatMonitor} */
+	private volatile long lastHeard;
+
+	HostConnection(URI hostUri) {
+		this.hostUri = hostUri;
+	}
+
+	public URI getHostUri() {
+		return hostUri;
+	}
+
+	public State getState() {
+		return link.get().state;
+	}
+
+	/**
+	 * @return the time in ms since the last state change
+	 */
+	public long getStateAge() {
+		return System.currentTimeMillis() - stateSince;
+	}
+
+	/**
+	 * @return the time in ms since the host was registered or reset
+	 */
+	public long getAge() {
+		return System.currentTimeMillis() - createdAt;
+	}
+
+	/**
+	 * @return <code>true</code> once the first connect opened or failed, or the connection was closed
+	 */
+	public boolean isSettled() {
+		return settled.getCount() == 0;
+	}
+
+	/**
+	 * Waits until the connection is settled.
+	 *
+	 * @return <code>true</code> if the connection is open
+	 */
+	boolean awaitSettled(long timeoutMillis) throws InterruptedException {
+		settled.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		return getState() == State.OPEN;
+	}
+
+	/**
+	 * The given client received a frame or a pong.
+	 */
+	void heard(HostClient fromClient) {
+		if (link.get().client == fromClient) {
+			lastHeard = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * @return the time in ms since the current client received anything
+	 */
+	long getSilence() {
+		return System.currentTimeMillis() - lastHeard;
+	}
+
+	/**
+	 * @return the number of failed connects in a row
+	 */
+	public int getFailures() {
+		return failures.get();
+	}
+
+	/**
+	 * @return the current client, <code>null</code> before the first connect and after close
+	 */
+	public HostClient getClient() {
+		return link.get().client;
+	}
+
+	/**
+	 * Installs the new client, which is about to connect. The replaced client is closed.
+	 *
+	 * @return <code>false</code> if the connection is already closed. The new client must not be connected then.
+	 */
+	boolean connecting(HostClient newClient) {
+		Link current;
+		do {
+			current = link.get();
+			if (current.state == State.CLOSED) {
+				return false;
+			}
+		} while (!link.compareAndSet(current, new Link(State.CONNECTING, newClient)));
+		stateSince = System.currentTimeMillis();
+		if (current.client != null) {
+			current.client.close();
+		}
+		return true;
+	}
+
+	/**
+	 * The connection of the given client was opened.
+	 *
+	 * @return <code>false</code> if the client is not the current one anymore
+	 */
+	boolean opened(HostClient openedClient) {
+		Link current = link.get();
+		if (current.client != openedClient || current.state != State.CONNECTING
+				|| !link.compareAndSet(current, new Link(State.OPEN, openedClient))) {
+			return false;
+		}
+		stateSince = System.currentTimeMillis();
+		lastHeard = stateSince;
+		settled.countDown();
+		return true;
+	}
+
+	/**
+	 * The connection of the given client was closed or could not be opened.
+	 *
+	 * @param stableTime time in ms a connection must have been open to reset the failures in a row
+	 * @return <code>true</code> if the connection changed to WAITING, so a reconnect must be scheduled.
+	 * <code>false</code> if the client was replaced already or a reconnect is already pending.
+	 */
+	boolean failed(HostClient failedClient, long stableTime) {
+		while (true) {
+			Link current = link.get();
+			if (current.client != failedClient || current.state == State.WAITING || current.state == State.CLOSED) {
+				return false;
+			}
+			long since = stateSince;
+			if (link.compareAndSet(current, new Link(State.WAITING, failedClient))) {
+				long now = System.currentTimeMillis();
+				if (current.state == State.OPEN && now - since > stableTime) {
+					failures.set(0); //Was a stable connection, not a flapping one
+				}
+				failures.incrementAndGet();
+				stateSince = now;
+				settled.countDown();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Sends the frame, if the connection is open. Never blocks.
+	 *
+	 * @return <code>false</code> if the frame could not be sent
+	 */
+	boolean send(String frame) {
+		Link current = link.get();
+		if (current.client == null || current.state != State.OPEN) {
+			return false;
+		}
+		try {
+			current.client.send(frame);
+			return true;
+		} catch (RuntimeException e) { //e.g. NotYetConnectedException, if it was closed right now
+			return false;
+		}
+	}
+
+	/**
+	 * Sends the binary frame, if the connection is open. Never blocks.
+	 *
+	 * @return <code>false</code> if the frame could not be sent
+	 */
+	boolean send(byte[] frame) {
+		Link current = link.get();
+		if (current.client == null || current.state != State.OPEN) {
+			return false;
+		}
+		try {
+			current.client.send(frame);
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Closes the client and starts over as NEW, e.g. because the binding was deactivated. The
+	 * connection stays registered for its items and is connected again by the next binding.
+	 */
+	void reset() {
+		Link current;
+		do {
+			current = link.get();
+			if (current.state == State.CLOSED) {
+				return;
+			}
+		} while (!link.compareAndSet(current, new Link(State.NEW, null)));
+		long now = System.currentTimeMillis();
+		stateSince = now;
+		createdAt = now;
+		failures.set(0);
+		CountDownLatch old = settled;
+		settled = new CountDownLatch(1);
+		old.countDown(); //Don't keep anyone waiting for the old binding
+		if (current.client != null) {
+			current.client.close();
+		}
+	}
+
+	/**
+	 * Closes the connection for good, no reconnect will happen.
+	 */
+	void close() {
+		Link old = link.getAndSet(new Link(State.CLOSED, null));
+		stateSince = System.currentTimeMillis();
+		settled.countDown();
+		if (old.client != null) {
+			old.client.close();
+		}
+	}
+}
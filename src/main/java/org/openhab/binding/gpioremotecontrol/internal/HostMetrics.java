@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of one host. The counters are updated by the threads of the binding without
+ * locks. Values which are kept elsewhere anyway, like the connection state, are read
+ * from the {@link Source} when JMX asks for them.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public class HostMetrics implements HostMetricsMBean {
+
+	interface Source {
+		/** @return the connection to the host, <code>null</code> if it is not registered */
+		HostConnection getConnection(URI hostUri);
+
+		int getInboundQueueDepth(URI hostUri);
+
+		long getDroppedFrames(URI hostUri);
+
+		int getInFlightCommands(URI hostUri);
+	}
+
+	private final URI hostUri;
+	private final Source source;
+
+	private final AtomicLong reconnects = new AtomicLong();
+	private final AtomicLong framesSent = new AtomicLong();
+	private final AtomicLong bytesSent = new AtomicLong();
+	private final AtomicLong framesReceived = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicLong failedSends = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong ackTimeouts = new AtomicLong();
+	private final AtomicLong heartbeatTimeouts = new AtomicLong();
+
+	final LatencyHistogram commandLatency = new LatencyHistogram();
+	final LatencyHistogram parseTime = new LatencyHistogram();
+	final LatencyHistogram publishLatency = new LatencyHistogram();
+	final LatencyHistogram ackLatency = new LatencyHistogram();
+	final LatencyHistogram heartbeatRtt = new LatencyHistogram();
+
+	HostMetrics(URI hostUri, Source source) {
+		this.hostUri = hostUri;
+		this.source = source;
+	}
+
+	URI getHostUri() {
+		return hostUri;
+	}
+
+	void reconnecting() {
+		reconnects.incrementAndGet();
+	}
+
+	/**
+	 * @return the length of the text in UTF-8, as it is sent in a text frame
+	 */
+	static int getUtf8Length(String text) {
+		int length = text.length();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c >= 0x800) {
+				if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+					i++; //4 bytes for the pair of chars
+				}
+				length += 2;
+			} else if (c >= 0x80) {
+				length++;
+			}
+		}
+		return length;
+	}
+
+	void sent(int bytes) {
+		framesSent.incrementAndGet();
+		bytesSent.addAndGet(bytes);
+	}
+
+	void sendFailed() {
+		failedSends.incrementAndGet();
+	}
+
+	void received(int bytes) {
+		framesReceived.incrementAndGet();
+		bytesReceived.addAndGet(bytes);
+	}
+
+	void retried() {
+		retries.incrementAndGet();
+	}
+
+	void ackTimedOut() {
+		ackTimeouts.incrementAndGet();
+	}
+
+	void heartbeatTimedOut() {
+		heartbeatTimeouts.incrementAndGet();
+	}
+
+	@Override
+	public String getHost() {
+		return hostUri.toString();
+	}
+
+	@Override
+	public String getConnectionState() {
+		HostConnection connection = source.getConnection(hostUri);
+		return connection == null ? "UNREGISTERED" : connection.getState().name();
+	}
+
+	@Override
+	public long getReconnects() {
+		return reconnects.get();
+	}
+
+	@Override
+	public int getConnectFailures() {
+		HostConnection connection = source.getConnection(hostUri);
+		return connection == null ? 0 : connection.getFailures();
+	}
+
+	@Override
+	public long getFramesSent() {
+		return framesSent.get();
+	}
+
+	@Override
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	@Override
+	public long getFramesReceived() {
+		return framesReceived.get();
+	}
+
+	@Override
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	@Override
+	public long getFailedSends() {
+		return failedSends.get();
+	}
+
+	@Override
+	public long getDroppedFrames() {
+		return source.getDroppedFrames(hostUri);
+	}
+
+	@Override
+	public int getInboundQueueDepth() {
+		return source.getInboundQueueDepth(hostUri);
+	}
+
+	@Override
+	public long getCommandCount() {
+		return commandLatency.getCount();
+	}
+
+	@Override
+	public long getCommandLatencyMean() {
+		return commandLatency.getMean();
+	}
+
+	@Override
+	public long getCommandLatency99() {
+		return commandLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getCommandLatencyMax() {
+		return commandLatency.getMax();
+	}
+
+	@Override
+	public long getParseCount() {
+		return parseTime.getCount();
+	}
+
+	@Override
+	public long getParseTimeMean() {
+		return parseTime.getMean();
+	}
+
+	@Override
+	public long getParseTime99() {
+		return parseTime.getPercentile(0.99);
+	}
+
+	@Override
+	public long getParseTimeMax() {
+		return parseTime.getMax();
+	}
+
+	@Override
+	public long getPublishCount() {
+		return publishLatency.getCount();
+	}
+
+	@Override
+	public long getPublishLatencyMean() {
+		return publishLatency.getMean();
+	}
+
+	@Override
+	public long getPublishLatency99() {
+		return publishLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getPublishLatencyMax() {
+		return publishLatency.getMax();
+	}
+
+	@Override
+	public int getInFlightCommands() {
+		return source.getInFlightCommands(hostUri);
+	}
+
+	@Override
+	public long getAckCount() {
+		return ackLatency.getCount();
+	}
+
+	@Override
+	public long getAckLatencyMean() {
+		return ackLatency.getMean();
+	}
+
+	@Override
+	public long getAckLatency99() {
+		return ackLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getAckLatencyMax() {
+		return ackLatency.getMax();
+	}
+
+	@Override
+	public long getRetries() {
+		return retries.get();
+	}
+
+	@Override
+	public long getAckTimeouts() {
+		return ackTimeouts.get();
+	}
+
+	@Override
+	public long getHeartbeatCount() {
+		return heartbeatRtt.getCount();
+	}
+
+	@Override
+	public long getHeartbeatRttMean() {
+		return heartbeatRtt.getMean();
+	}
+
+	@Override
+	public long getHeartbeatRtt99() {
+		return heartbeatRtt.getPercentile(0.99);
+	}
+
+	@Override
+	public long getHeartbeatRttMax() {
+		return heartbeatRtt.getMax();
+	}
+
+	@Override
+	public long getHeartbeatTimeouts() {
+		return heartbeatTimeouts.get();
+	}
+
+	@Override
+	public void resetStatistics() {
+		reconnects.set(0);
+		framesSent.set(0);
+		bytesSent.set(0);
+		framesReceived.set(0);
+		bytesReceived.set(0);
+		failedSends.set(0);
+		retries.set(0);
+		ackTimeouts.set(0);
+		heartbeatTimeouts.set(0);
+		commandLatency.reset();
+		parseTime.reset();
+		publishLatency.reset();
+		ackLatency.reset();
+		heartbeatRtt.reset();
+	}
+}
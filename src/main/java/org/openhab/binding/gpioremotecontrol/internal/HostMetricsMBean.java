@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+/**
+ * JMX view of the metrics of one host. Durations are in µs, percentiles are
+ * approximated by power of two buckets.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+public interface HostMetricsMBean {
+
+	String getHost();
+
+	/** @return NEW, CONNECTING, OPEN, WAITING or CLOSED */
+	String getConnectionState();
+
+	long getReconnects();
+
+	/** @return the number of failed connects in a row */
+	int getConnectFailures();
+
+	long getFramesSent();
+
+	long getBytesSent();
+
+	long getFramesReceived();
+
+	long getBytesReceived();
+
+	/** @return the number of frames which could not be sent, because the connection was not open */
+	long getFailedSends();
+
+	/** @return the number of received frames dropped because the inbound buffer was full */
+	long getDroppedFrames();
+
+	/** @return the number of received frames waiting to be handled */
+	int getInboundQueueDepth();
+
+	/** @return the number of commands handled, from the event bus until they are handed on for sending */
+	long getCommandCount();
+
+	long getCommandLatencyMean();
+
+	long getCommandLatency99();
+
+	long getCommandLatencyMax();
+
+	long getParseCount();
+
+	long getParseTimeMean();
+
+	long getParseTime99();
+
+	long getParseTimeMax();
+
+	/** @return the number of updates posted to the event bus */
+	long getPublishCount();
+
+	long getPublishLatencyMean();
+
+	long getPublishLatency99();
+
+	long getPublishLatencyMax();
+
+	/** @return the number of commands sent and not acknowledged yet, 0 if the host doesn't acknowledge */
+	int getInFlightCommands();
+
+	/** @return the number of acknowledged commands, with their round trip from the first send until the ACK */
+	long getAckCount();
+
+	long getAckLatencyMean();
+
+	long getAckLatency99();
+
+	long getAckLatencyMax();
+
+	/** @return the number of commands sent again, because their ACK did not arrive in time */
+	long getRetries();
+
+	/** @return the number of commands given up after the last retry */
+	long getAckTimeouts();
+
+	/** @return the number of pongs received, with the round trip time of their ping */
+	long getHeartbeatCount();
+
+	long getHeartbeatRttMean();
+
+	long getHeartbeatRtt99();
+
+	long getHeartbeatRttMax();
+
+	/** @return the number of connections dropped, because the host didn't send anything for the heartbeat timeout */
+	long getHeartbeatTimeouts();
+
+	/** Resets all counters and histograms */
+	void resetStatistics();
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Takes the received frames off the WebSocket reader threads. Each host gets a bounded
+ * ring buffer. One dispatcher thread drains the buffers and hands the frames to the
+ * {@link Handler}. A slow event bus then fills the buffers instead of stalling the sockets.
+ * <p>
+ * A frame is the String of a text message or the byte[] of a binary message.
+ * <p>
+ * If the buffer of a host is full, the {@link OverflowPolicy} decides what happens.
+ * Dropped frames are counted per host. Frames of hosts without a buffer, e.g. late frames
+ * of a removed host, are dropped.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class InboundDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(InboundDispatcher.class);
+
+	/** Frames handled in a row for one host, before the other hosts get their turn */
+	private static final int BURST = 64;
+
+	enum OverflowPolicy {
+		/**
+		 * The oldest buffered reading of the same sensor is dropped, so the newest value of a sensor wins.
+		 * If the frame has none, the oldest reading which a newer one of its sensor replaces is dropped.
+		 * Only if every buffered frame is the one reading of its sensor or has no sensor, like an input
+		 * edge, the oldest frame is dropped.
+		 */
+		DROP_OLDEST,
+		/** The reader thread waits for space. This slows down reading from the socket, so the server is throttled by TCP. */
+		BLOCK,
+		/** The received frame is dropped. */
+		DROP_NEWEST
+	}
+
+	interface Handler {
+		void handle(URI hostUri, Object message);
+
+		/**
+		 * Only asked for frames in a full buffer, at most once per frame.
+		 * 
+		 * @return the sensor of the reading in the frame, e.g. its device id, or <code>null</code> if the
+		 * frame is no single reading a newer frame could replace
+		 */
+		Object getKey(Object message);
+	}
+
+	/** Key of a buffered frame which was not asked for yet */
+	private static final Object UNKNOWN_KEY = new Object();
+
+	private static class Ring {
+		final URI hostUri;
+		final Object[] frames;
+		/** The key per frame, {@link #UNKNOWN_KEY} until it is needed */
+		final Object[] keys;
+		int head;
+		int size;
+		long dropped;
+		boolean scheduled;
+
+		Ring(URI hostUri, int capacity) {
+			this.hostUri = hostUri;
+			this.frames = new Object[capacity];
+			this.keys = new Object[capacity];
+		}
+
+		void add(Object frame, Object key) {
+			int index = (head + size) % frames.length;
+			frames[index] = frame;
+			keys[index] = key;
+			size++;
+		}
+
+		Object poll() {
+			Object frame = frames[head];
+			frames[head] = null;
+			keys[head] = null;
+			head = (head + 1) % frames.length;
+			size--;
+			return frame;
+		}
+
+		/** @return the key of the i-th oldest frame */
+		Object getKey(int i, Handler handler) {
+			int index = (head + i) % frames.length;
+			if (keys[index] == UNKNOWN_KEY) {
+				keys[index] = handler.getKey(frames[index]);
+			}
+			return keys[index];
+		}
+
+		/** Removes the i-th oldest frame, the newer ones move up. */
+		void remove(int i) {
+			for (; i < size - 1; i++) {
+				frames[(head + i) % frames.length] = frames[(head + i + 1) % frames.length];
+				keys[(head + i) % frames.length] = keys[(head + i + 1) % frames.length];
+			}
+			frames[(head + size - 1) % frames.length] = null;
+			keys[(head + size - 1) % frames.length] = null;
+			size--;
+		}
+
+		/**
+		 * @return the index of the frame to drop for a new frame with the given key, see {@link OverflowPolicy#DROP_OLDEST}
+		 */
+		int getReplaced(Object key, Handler handler) {
+			if (key != null) {
+				for (int i = 0; i < size; i++) {
+					if (key.equals(getKey(i, handler))) {
+						return i;
+					}
+				}
+			}
+			Set<Object> newer = new HashSet<>();
+			int replaced = 0;
+			for (int i = size - 1; i >= 0; i--) {
+				Object bufferedKey = getKey(i, handler);
+				if (bufferedKey != null && !newer.add(bufferedKey)) {
+					replaced = i; //A newer reading of the sensor follows
+				}
+			}
+			return replaced;
+		}
+	}
+
+	private final int capacity;
+	private final OverflowPolicy overflowPolicy;
+	private final Handler handler;
+
+	private final ConcurrentMap<URI, Ring> rings = new ConcurrentHashMap<>();
+	private final BlockingQueue<Ring> readyRings = new LinkedBlockingQueue<>();
+	private volatile Thread dispatcherThread;
+
+	/**
+	 * @param capacity the number of frames buffered per host, at least 1
+	 * @param overflowPolicy what happens if the buffer of a host is full
+	 * @param handler handles the frames on the dispatcher thread
+	 */
+	InboundDispatcher(int capacity, OverflowPolicy overflowPolicy, Handler handler) {
+		this.capacity = Math.max(1, capacity);
+		this.overflowPolicy = overflowPolicy;
+		this.handler = handler;
+	}
+
+	void start() {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				dispatch();
+			}
+		}, "GpioRemoteControl Dispatcher");
+		thread.setDaemon(true);
+		dispatcherThread = thread;
+		thread.start();
+	}
+
+	void stop() {
+		Thread thread = dispatcherThread;
+		dispatcherThread = null;
+		if (thread != null) {
+			thread.interrupt();
+		}
+		for (Ring ring : rings.values()) {
+			synchronized (ring) {
+				ring.notifyAll(); //Release blocked reader threads
+			}
+		}
+	}
+
+	/**
+	 * Buffers the frame. Called by the reader thread of the host.
+	 */
+	void enqueue(URI hostUri, Object message) {
+		Ring ring = rings.get(hostUri);
+		if (ring == null) {
+			logger.debug("GpioRemoteControl: Frame of unknown host {} dropped", hostUri);
+			return;
+		}
+		Object key = UNKNOWN_KEY;
+		synchronized (ring) {
+			if (ring.size == capacity) {
+				switch (overflowPolicy) {
+				case BLOCK:
+					while (ring.size == capacity && dispatcherThread != null) {
+						try {
+							ring.wait(100);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							break;
+						}
+					}
+					if (ring.size == capacity) {
+						ring.dropped++; //Stopped or interrupted while waiting
+						return;
+					}
+					break;
+				case DROP_NEWEST:
+					ring.dropped++;
+					return;
+				default:
+					key = handler.getKey(message);
+					ring.remove(ring.getReplaced(key, handler));
+					ring.dropped++;
+					break;
+				}
+			}
+			ring.add(message, key);
+			if (!ring.scheduled) {
+				ring.scheduled = true;
+				readyRings.add(ring);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of frames of the host waiting to be handled
+	 */
+	int getQueueDepth(URI hostUri) {
+		Ring ring = rings.get(hostUri);
+		if (ring == null) {
+			return 0;
+		}
+		synchronized (ring) {
+			return ring.size;
+		}
+	}
+
+	/**
+	 * @return the number of frames of the host dropped because its buffer was full
+	 */
+	long getDroppedFrames(URI hostUri) {
+		Ring ring = rings.get(hostUri);
+		if (ring == null) {
+			return 0;
+		}
+		synchronized (ring) {
+			return ring.dropped;
+		}
+	}
+
+	/** Creates the buffer of a host, if it has none yet. */
+	void add(URI hostUri) {
+		if (!rings.containsKey(hostUri)) {
+			rings.putIfAbsent(hostUri, new Ring(hostUri, capacity));
+		}
+	}
+
+	/** Forgets the buffer of a host which is not used anymore. Frames still in it are dropped. */
+	void remove(URI hostUri) {
+		rings.remove(hostUri);
+	}
+
+	private void dispatch() {
+		while (dispatcherThread == Thread.currentThread()) {
+			Ring ring;
+			try {
+				ring = readyRings.take();
+			} catch (InterruptedException e) {
+				break;
+			}
+			boolean drained = false;
+			for (int i = 0; i < BURST; i++) {
+				Object message;
+				synchronized (ring) {
+					if (ring.size == 0) {
+						ring.scheduled = false;
+						drained = true;
+						break;
+					}
+					message = ring.poll();
+					ring.notifyAll(); //Space for blocked reader threads
+				}
+				try {
+					handler.handle(ring.hostUri, message);
+				} catch (RuntimeException e) {
+					logger.warn("GpioRemoteControl: Handling message of {} failed: {}", ring.hostUri, message, e);
+				}
+			}
+			if (!drained) {
+				synchronized (ring) {
+					if (ring.size > 0) {
+						readyRings.add(ring); //Burst used up, let the other hosts go first
+					} else {
+						ring.scheduled = false;
+					}
+				}
+			}
+		}
+	}
+}
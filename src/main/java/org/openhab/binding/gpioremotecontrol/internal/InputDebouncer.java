@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.HostAndTempAndPinConfiguration;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounces the levels of input items, e.g. of reed contacts and push buttons.
+ * <p>
+ * The Pi sends a frame for every edge, with the time the previous level lasted as
+ * <code>timeSinceLastChange</code>. A new level is pending first. It is dropped as a
+ * bounce, if the next edge says it lasted shorter than the debounce time of the item.
+ * It is published, if it lasted longer or no further edge arrived within the debounce
+ * time. The durations measured on the Pi are used where available, so delays on the
+ * network don't make a bounce look stable.
+ * <p>
+ * A stable level is only published, if it differs from the last published one. So a
+ * bouncing contact results in exactly one update per real transition.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class InputDebouncer {
+
+	interface Publisher {
+		void publish(URI hostUri, String itemName, boolean high);
+	}
+
+	private static class Slot {
+		final HostAndTempAndPinConfiguration config;
+		Boolean published;
+		boolean pending;
+		boolean pendingHigh;
+		int generation;
+		ScheduledFuture<?> timer;
+
+		Slot(HostAndTempAndPinConfiguration config) {
+			this.config = config;
+		}
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final Publisher publisher;
+
+	private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+	/**
+	 * @param scheduler used to publish the pending levels when their debounce time is over
+	 * @param publisher publishes the stable levels
+	 */
+	InputDebouncer(ScheduledExecutorService scheduler, Publisher publisher) {
+		this.scheduler = scheduler;
+		this.publisher = publisher;
+	}
+
+	/**
+	 * Handles the level received for the item. Its config must have a debounce time greater than 0.
+	 */
+	void submit(final String itemName, HostAndTempAndPinConfiguration config, boolean high, long timeSinceLastChange) {
+		final Slot slot = getSlot(itemName, config);
+		long debounce = config.pinConfiguration.getDebounce();
+		synchronized (slot) {
+			if (slot.pending) {
+				if (timeSinceLastChange >= debounce) {
+					commit(itemName, slot, slot.pendingHigh); //Pending level lasted long enough on the Pi
+				} else if (high == slot.pendingHigh) {
+					return; //No edge, the pending level is still waiting for its timer
+				}
+				slot.timer.cancel(false);
+			}
+			slot.pending = true;
+			slot.pendingHigh = high;
+			final int generation = ++slot.generation;
+			slot.timer = scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (slot) {
+						if (slot.pending && slot.generation == generation && slots.get(itemName) == slot) {
+							commit(itemName, slot, slot.pendingHigh); //No further edge arrived in time
+						}
+					}
+				}
+			}, debounce, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/** Forgets the item, e.g. because it was reconfigured. A pending level is dropped. */
+	void remove(String itemName) {
+		Slot slot = slots.remove(itemName);
+		if (slot != null) {
+			synchronized (slot) {
+				slot.pending = false;
+				if (slot.timer != null) {
+					slot.timer.cancel(false);
+				}
+			}
+		}
+	}
+
+	private void commit(String itemName, Slot slot, boolean high) {
+		slot.pending = false;
+		if (slot.published == null || slot.published != high) {
+			slot.published = high;
+			publisher.publish(slot.config.getHostUri(), itemName, high);
+		}
+	}
+
+	private Slot getSlot(String itemName, HostAndTempAndPinConfiguration config) {
+		Slot slot = slots.get(itemName);
+		if (slot == null || slot.config != config) { //New or reconfigured item
+			slot = new Slot(config);
+			slots.put(itemName, slot);
+		}
+		return slot;
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.Event;
+import home.control.model.PinConfiguration;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the commands to hosts which are not connected, until they are connected
+ * again. Only the last command per pin is kept, because it describes the state the
+ * pin should have. Each command expires after a time to live, which is short for
+ * effects like blinking and fading, so they are not replayed long after they were wanted.
+ * The commands are encoded when they are sent, in the protocol of the host.
+ * <p>
+ * The number of pins held per host is bounded. If it is reached, the oldest command is dropped.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class OfflineQueue {
+
+	private static final Logger logger = LoggerFactory.getLogger(OfflineQueue.class);
+
+	interface Sender {
+		/** Sends the held commands of the host together, in order */
+		void send(URI hostUri, List<PinConfiguration> pinConfs);
+	}
+
+	private static class Entry {
+		final PinConfiguration pinConf;
+		final long expiresAt;
+
+		Entry(PinConfiguration pinConf, long expiresAt) {
+			this.pinConf = pinConf;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final int maxPins;
+	private final long stateTtl;
+	private final long effectTtl;
+
+	/** Commands per host by pin number, in the order the commands were received */
+	private final ConcurrentMap<URI, LinkedHashMap<Integer, Entry>> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxPins the number of pins held per host
+	 * @param stateTtl time in ms a SET or DIM command is held
+	 * @param effectTtl time in ms a FADE, FADE_UP_DOWN or BLINK command is held
+	 */
+	OfflineQueue(int maxPins, long stateTtl, long effectTtl) {
+		this.maxPins = maxPins;
+		this.stateTtl = stateTtl;
+		this.effectTtl = effectTtl;
+	}
+
+	/**
+	 * Holds the command until the host is connected again. Replaces a held command of the same pin.
+	 * The command must not be changed afterwards.
+	 */
+	void hold(URI hostUri, PinConfiguration pinConf) {
+		LinkedHashMap<Integer, Entry> queue = getQueue(hostUri);
+		long now = System.currentTimeMillis();
+		long ttl = pinConf.getEvent() == Event.SET || pinConf.getEvent() == Event.DIM ? stateTtl : effectTtl;
+		int pinNumber = pinConf.getNumber();
+		synchronized (queue) {
+			removeExpired(queue, now);
+			queue.remove(pinNumber); //Moves the pin to the end, the order of the commands is kept
+			if (queue.size() >= maxPins) {
+				Iterator<Entry> oldest = queue.values().iterator();
+				logger.debug("GpioRemoteControl: Offline queue of {} is full, command of pin {} dropped", hostUri, oldest.next().pinConf.getNumber());
+				oldest.remove();
+			}
+			queue.put(pinNumber, new Entry(pinConf, now + ttl));
+		}
+	}
+
+	/**
+	 * Sends the held commands of the host, which did not expire yet, in the order they were received,
+	 * in one burst.
+	 *
+	 * @return the number of commands sent
+	 */
+	int flush(URI hostUri, Sender sender) {
+		LinkedHashMap<Integer, Entry> queue = queues.get(hostUri);
+		if (queue == null) {
+			return 0;
+		}
+		List<PinConfiguration> pinConfs;
+		synchronized (queue) {
+			removeExpired(queue, System.currentTimeMillis());
+			pinConfs = new ArrayList<>(queue.size());
+			for (Entry entry : queue.values()) {
+				pinConfs.add(entry.pinConf);
+			}
+			queue.clear();
+		}
+		if (!pinConfs.isEmpty()) {
+			sender.send(hostUri, pinConfs);
+		}
+		return pinConfs.size();
+	}
+
+	/**
+	 * @return the number of commands held for the host, including expired ones
+	 */
+	int size(URI hostUri) {
+		LinkedHashMap<Integer, Entry> queue = queues.get(hostUri);
+		if (queue == null) {
+			return 0;
+		}
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+
+	/** Forgets a host which is not used anymore. Held commands are dropped. */
+	void remove(URI hostUri) {
+		queues.remove(hostUri);
+	}
+
+	private void removeExpired(LinkedHashMap<Integer, Entry> queue, long now) {
+		Iterator<Entry> entries = queue.values().iterator();
+		while (entries.hasNext()) {
+			if (entries.next().expiresAt <= now) {
+				entries.remove();
+			}
+		}
+	}
+
+	private LinkedHashMap<Integer, Entry> getQueue(URI hostUri) {
+		LinkedHashMap<Integer, Entry> queue = queues.get(hostUri);
+		if (queue == null) {
+			queues.putIfAbsent(hostUri, new LinkedHashMap<Integer, Entry>());
+			queue = queues.get(hostUri);
+		}
+		return queue;
+	}
+}
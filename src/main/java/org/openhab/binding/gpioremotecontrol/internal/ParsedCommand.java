@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+/**
+ * Immutable, already validated form of a command sent to an output item.
+ * Created by {@link CommandParser}, see there for the supported commands.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+final class ParsedCommand {
+
+	enum Type {
+		ON, OFF, TOGGLE, INCREASE, DECREASE, DIM, FADE, FADE_UP_DOWN, BLINK, INVALID
+	}
+
+	static final ParsedCommand ON = new ParsedCommand(Type.ON);
+	static final ParsedCommand OFF = new ParsedCommand(Type.OFF);
+	static final ParsedCommand TOGGLE = new ParsedCommand(Type.TOGGLE);
+	static final ParsedCommand INCREASE = new ParsedCommand(Type.INCREASE);
+	static final ParsedCommand DECREASE = new ParsedCommand(Type.DECREASE);
+	static final ParsedCommand INVALID = new ParsedCommand(Type.INVALID);
+
+	private final Type type;
+	private final int pwmValue;
+	private final long cycleDuration;
+	private final int startVal;
+	private final int endVal;
+	private final boolean repeat;
+	private final int cycles;
+	private final int cyclePause;
+	private final int uptime;
+	private final int downtime;
+
+	private ParsedCommand(Type type) {
+		this(type, 0, 0, 0, 0, false, 0, 0, 0, 0);
+	}
+
+	private ParsedCommand(Type type, int pwmValue, long cycleDuration, int startVal, int endVal, boolean repeat,
+			int cycles, int cyclePause, int uptime, int downtime) {
+		this.type = type;
+		this.pwmValue = pwmValue;
+		this.cycleDuration = cycleDuration;
+		this.startVal = startVal;
+		this.endVal = endVal;
+		this.repeat = repeat;
+		this.cycles = cycles;
+		this.cyclePause = cyclePause;
+		this.uptime = uptime;
+		this.downtime = downtime;
+	}
+
+	static ParsedCommand dim(int pwmValue) {
+		return new ParsedCommand(Type.DIM, pwmValue, 0, 0, 0, false, 0, 0, 0, 0);
+	}
+
+	/**
+	 * @param type {@link Type#FADE} or {@link Type#FADE_UP_DOWN}
+	 */
+	static ParsedCommand fade(Type type, long cycleDuration, int startVal, int endVal, boolean repeat, int cycles, int cyclePause) {
+		return new ParsedCommand(type, 0, cycleDuration, startVal, endVal, repeat, cycles, cyclePause, 0, 0);
+	}
+
+	static ParsedCommand blink(int uptime, int downtime, int pwmValue, boolean repeat, int cycles) {
+		return new ParsedCommand(Type.BLINK, pwmValue, 0, 0, 0, repeat, cycles, 0, uptime, downtime);
+	}
+
+	Type getType() {
+		return type;
+	}
+
+	int getPwmValue() {
+		return pwmValue;
+	}
+
+	long getCycleDuration() {
+		return cycleDuration;
+	}
+
+	int getStartVal() {
+		return startVal;
+	}
+
+	int getEndVal() {
+		return endVal;
+	}
+
+	boolean isRepeat() {
+		return repeat;
+	}
+
+	int getCycles() {
+		return cycles;
+	}
+
+	int getCyclePause() {
+		return cyclePause;
+	}
+
+	int getUptime() {
+		return uptime;
+	}
+
+	int getDowntime() {
+		return downtime;
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.Event;
+import home.control.model.PinConfiguration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes {@link PinConfiguration}s as JSON frames without reflection. Only the fields
+ * the event needs are written, the server uses its defaults for the others:
+ * <ul>
+ * <li>SET: number, outputHigh
+ * <li>DIM: number, pwmValue
+ * <li>FADE, FADE_UP_DOWN: number, cycleDuration, startVal, endVal, repeat, cycles, cyclePause
+ * <li>BLINK: number, uptime, downtime, pwmValue, repeat, cycles
+ * <li>all others: number
+ * </ul>
+ * A sequence id is written as <code>seq</code> if the command has one.
+ * The frames of SET and DIM without sequence id, which depend only on pin and value, are cached per pin.
+ * Instances are thread safe.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class PinConfigurationEncoder {
+
+	private static final int SET_LOW = 101;
+	private static final int SET_HIGH = 102;
+
+	/** pin number -> frames of DIM 0-100, SET low and SET high. Racy updates only cause a frame to be encoded twice. */
+	private final ConcurrentMap<Integer, String[]> cachedFrames = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(256);
+		}
+	};
+
+	String encode(PinConfiguration pinConf) {
+		Event event = pinConf.getEvent();
+		if (pinConf.getSeq() != 0) {
+			return write(pinConf); //Unique per command
+		} else if (event == Event.SET) {
+			return getCachedFrame(pinConf, pinConf.isOutputHigh() ? SET_HIGH : SET_LOW);
+		} else if (event == Event.DIM) {
+			return getCachedFrame(pinConf, pinConf.getPwmValue());
+		}
+		return write(pinConf);
+	}
+
+	private String getCachedFrame(PinConfiguration pinConf, int index) {
+		String[] frames = cachedFrames.get(pinConf.getNumber());
+		if (frames == null) {
+			cachedFrames.putIfAbsent(pinConf.getNumber(), new String[SET_HIGH + 1]);
+			frames = cachedFrames.get(pinConf.getNumber());
+		}
+		String frame = frames[index];
+		if (frame == null) {
+			frame = write(pinConf);
+			frames[index] = frame;
+		}
+		return frame;
+	}
+
+	private String write(PinConfiguration pinConf) {
+		StringBuilder json = buffers.get();
+		json.setLength(0);
+		json.append("{\"event\":\"").append(pinConf.getEvent().name()).append('"');
+		appendField(json, "number", pinConf.getNumber());
+		switch (pinConf.getEvent()) {
+		case SET:
+			appendField(json, "outputHigh", pinConf.isOutputHigh());
+			break;
+		case DIM:
+			appendField(json, "pwmValue", pinConf.getPwmValue());
+			break;
+		case FADE:
+		case FADE_UP_DOWN:
+			appendField(json, "cycleDuration", pinConf.getCycleDuration());
+			appendField(json, "startVal", pinConf.getStartVal());
+			appendField(json, "endVal", pinConf.getEndVal());
+			appendField(json, "repeat", pinConf.isRepeat());
+			appendField(json, "cycles", pinConf.getCycles());
+			appendField(json, "cyclePause", pinConf.getCyclePause());
+			break;
+		case BLINK:
+			appendField(json, "uptime", pinConf.getUptime());
+			appendField(json, "downtime", pinConf.getDowntime());
+			appendField(json, "pwmValue", pinConf.getPwmValue());
+			appendField(json, "repeat", pinConf.isRepeat());
+			appendField(json, "cycles", pinConf.getCycles());
+			break;
+		default:
+			break;
+		}
+		if (pinConf.getSeq() != 0) {
+			appendField(json, "seq", pinConf.getSeq());
+		}
+		return json.append('}').toString();
+	}
+
+	private static void appendField(StringBuilder json, String name, long value) {
+		json.append(",\"").append(name).append("\":").append(value);
+	}
+
+	private static void appendField(StringBuilder json, String name, boolean value) {
+		json.append(",\"").append(name).append("\":").append(value);
+	}
+}
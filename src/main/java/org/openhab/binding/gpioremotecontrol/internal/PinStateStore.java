@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The PWM values 0-100 the output pins were last set to, one array per host indexed by
+ * pin number. Every update is one compare-and-set on the array, so concurrent relative
+ * commands like INCREASE and TOGGLE of the same pin never lose an update, and nothing
+ * is allocated per update.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class PinStateStore {
+
+	/** Pin numbers 0-254, like in the binary protocol */
+	static final int PINS = 255;
+
+	private final ConcurrentMap<URI, AtomicIntegerArray> values = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the PWM value of the pin, 0 if it was never set
+	 */
+	int get(URI hostUri, int pinNumber) {
+		AtomicIntegerArray pins = values.get(hostUri);
+		return pins == null ? 0 : pins.get(pinNumber);
+	}
+
+	/**
+	 * @return the new PWM value, the given one limited to 0-100
+	 */
+	int set(URI hostUri, int pinNumber, int pwmValue) {
+		int value = limit(pwmValue);
+		getPins(hostUri).set(pinNumber, value);
+		return value;
+	}
+
+	/**
+	 * Adds the delta to the PWM value of the pin.
+	 *
+	 * @return the new PWM value, limited to 0-100
+	 */
+	int add(URI hostUri, int pinNumber, int delta) {
+		AtomicIntegerArray pins = getPins(hostUri);
+		while (true) {
+			int current = pins.get(pinNumber);
+			int next = limit(current + delta);
+			if (pins.compareAndSet(pinNumber, current, next)) {
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * Switches the pin fully on, unless it is fully on already, then off.
+	 *
+	 * @return the new PWM value, 100 or 0
+	 */
+	int toggle(URI hostUri, int pinNumber) {
+		AtomicIntegerArray pins = getPins(hostUri);
+		while (true) {
+			int current = pins.get(pinNumber);
+			int next = current < 100 ? 100 : 0;
+			if (pins.compareAndSet(pinNumber, current, next)) {
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * Forgets the values of the host.
+	 */
+	void remove(URI hostUri) {
+		values.remove(hostUri);
+	}
+
+	private AtomicIntegerArray getPins(URI hostUri) {
+		AtomicIntegerArray pins = values.get(hostUri);
+		if (pins == null) {
+			values.putIfAbsent(hostUri, new AtomicIntegerArray(PINS));
+			pins = values.get(hostUri);
+		}
+		return pins;
+	}
+
+	private static int limit(int pwmValue) {
+		return pwmValue > 100 ? 100 : pwmValue < 0 ? 0 : pwmValue;
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Follows one command of a scene item until every host accepted its part. A host has
+ * accepted when its frame was handed to the open connection, or, for hosts which
+ * acknowledge commands, when every command of the frame was acknowledged.
+ * The {@link Listener} is called once, when the last host accepted or failed.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class SceneProgress {
+
+	interface Listener {
+		/** @param nanos the time from the command until the last host accepted */
+		void accepted(SceneProgress progress, long nanos);
+
+		/** @param failedHosts the hosts which did not accept their part, in the order they failed */
+		void failed(SceneProgress progress, Set<URI> failedHosts);
+	}
+
+	private final String itemName;
+	private final boolean on;
+	private final Listener listener;
+	private final long start = System.nanoTime();
+
+	/** host -> commands not accepted yet */
+	private final Map<URI, Integer> pending = new HashMap<>();
+	private final Set<URI> failedHosts = new LinkedHashSet<>();
+	private boolean done;
+
+	/**
+	 * @param itemName the scene item
+	 * @param on whether the scene is switched ON or OFF
+	 * @param listener is told about the outcome
+	 */
+	SceneProgress(String itemName, boolean on, Listener listener) {
+		this.itemName = itemName;
+		this.on = on;
+		this.listener = listener;
+	}
+
+	String getItemName() {
+		return itemName;
+	}
+
+	boolean isOn() {
+		return on;
+	}
+
+	/**
+	 * Registers a host before its frame is sent.
+	 *
+	 * @param commands the number of {@link #accepted(URI)} calls the host needs
+	 */
+	synchronized void expect(URI hostUri, int commands) {
+		pending.put(hostUri, commands);
+	}
+
+	void accepted(URI hostUri) {
+		synchronized (this) {
+			Integer commands = pending.get(hostUri);
+			if (commands == null) {
+				return; //Failed or accepted before
+			}
+			if (commands > 1) {
+				pending.put(hostUri, commands - 1);
+				return;
+			}
+			pending.remove(hostUri);
+			if (!isComplete()) {
+				return;
+			}
+		}
+		complete();
+	}
+
+	void failed(URI hostUri) {
+		synchronized (this) {
+			if (pending.remove(hostUri) == null) {
+				return;
+			}
+			failedHosts.add(hostUri);
+			if (!isComplete()) {
+				return;
+			}
+		}
+		complete();
+	}
+
+	/**
+	 * Fails all hosts which have not accepted yet, e.g. because the time for their ACKs is over.
+	 */
+	void expire() {
+		synchronized (this) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			failedHosts.addAll(pending.keySet());
+			pending.clear();
+			if (!isComplete()) {
+				return;
+			}
+		}
+		complete();
+	}
+
+	/** Must be called with the lock held. Marks the progress done the first time it returns <code>true</code>. */
+	private boolean isComplete() {
+		if (done || !pending.isEmpty()) {
+			return false;
+		}
+		done = true;
+		return true;
+	}
+
+	private void complete() {
+		if (failedHosts.isEmpty()) {
+			listener.accepted(this, System.nanoTime() - start);
+		} else {
+			listener.failed(this, failedHosts);
+		}
+	}
+}
@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import org.java_websocket.SocketChannelIOHelper;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketAdapter;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft_10;
+import org.java_websocket.exceptions.InvalidHandshakeException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.Handshakedata;
+import org.java_websocket.handshake.HandshakeImpl1Client;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * WebSocket client without a thread of its own. Its non-blocking channel is served by a
+ * {@link SelectorTransport.Loop}, which does the connect, the handshake, reading and writing.
+ * The protocol itself is done by the <code>WebSocketImpl</code> of the WebSocket library, like
+ * in {@link Client}, so both behave the same towards the binding and the Pi.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class SelectorClient extends WebSocketAdapter implements HostClient {
+
+	private static final Logger logger = LoggerFactory.getLogger(SelectorClient.class);
+
+	private final HostConnection hostConnection;
+	private final GpioRemoteControlBinding gpioRemoteControlBinding;
+	private final SelectorTransport.Loop loop;
+	private final URI uri;
+
+	/** Set by the selector thread once the channel is registered */
+	private volatile WebSocketImpl conn;
+	private volatile SelectionKey key;
+	private SocketChannel channel;
+	private volatile boolean closed;
+
+	SelectorClient(HostConnection hostConnection, GpioRemoteControlBinding gpioRemoteControlBinding, SelectorTransport.Loop loop) {
+		this.hostConnection = hostConnection;
+		this.gpioRemoteControlBinding = gpioRemoteControlBinding;
+		this.loop = loop;
+		this.uri = hostConnection.getHostUri();
+	}
+
+	@Override
+	public void connect() {
+		final InetSocketAddress address = new InetSocketAddress(uri.getHost(), getPort()); //Looked up here, never called on a selector thread
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				open(address);
+			}
+		});
+	}
+
+	/** On the selector thread */
+	private void open(InetSocketAddress address) {
+		if (closed) {
+			return;
+		}
+		try {
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			conn = new WebSocketImpl(this, new Draft_10(), channel.socket());
+			boolean connected = channel.connect(address);
+			key = channel.register(loop.getSelector(), SelectionKey.OP_CONNECT, this);
+			if (connected) {
+				finishConnect();
+			}
+		} catch (IOException | RuntimeException | InvalidHandshakeException e) { //e.g. UnresolvedAddressException
+			failed(e);
+		}
+	}
+
+	/**
+	 * Handles the ready operations of the channel, on the selector thread.
+	 *
+	 * @param readBuffer shared by all clients of the loop
+	 */
+	void handle(SelectionKey readyKey, ByteBuffer readBuffer) {
+		WebSocketImpl current = conn;
+		try {
+			if (!readyKey.isValid()) {
+				current.eot();
+				return;
+			}
+			if (readyKey.isConnectable()) {
+				finishConnect();
+			}
+			if (readyKey.isReadable() && SocketChannelIOHelper.read(readBuffer, current, channel)) {
+				current.decode(readBuffer);
+			}
+			if (readyKey.isValid() && readyKey.isWritable()) {
+				if (SocketChannelIOHelper.batch(current, channel)) {
+					if (readyKey.isValid()) {
+						readyKey.interestOps(SelectionKey.OP_READ); //Everything written
+					}
+				} else {
+					readyKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				}
+			}
+		} catch (CancelledKeyException | IOException | InvalidHandshakeException e) {
+			failed(e);
+		} catch (RuntimeException e) {
+			logger.warn("GpioRemoteControl: Connection {} failed", uri, e);
+			failed(e);
+		}
+	}
+
+	/** On the selector thread */
+	private void finishConnect() throws IOException, InvalidHandshakeException {
+		if (channel.isConnectionPending()) {
+			channel.finishConnect();
+		}
+		conn.key = key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		conn.channel = channel;
+		String path = uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath();
+		HandshakeImpl1Client handshake = new HandshakeImpl1Client();
+		handshake.setResourceDescriptor(uri.getQuery() == null ? path : path + "?" + uri.getQuery());
+		handshake.put("Host", uri.getHost() + (getPort() != WebSocket.DEFAULT_PORT ? ":" + getPort() : ""));
+		conn.startHandshake(handshake);
+	}
+
+	/**
+	 * Called once the thread of the loop ended.
+	 */
+	void transportStopped() {
+		failed(new IOException("Selector thread stopped"));
+	}
+
+	private void failed(Exception e) {
+		logger.debug("GpioRemoteControl: an error occured on connection {}: {}", uri, e.toString());
+		WebSocketImpl current = conn;
+		if (current != null) {
+			current.eot(); //Calls onWebsocketClose once
+		} else {
+			gpioRemoteControlBinding.connectionLost(hostConnection, this);
+		}
+		closeChannel();
+	}
+
+	private void closeChannel() {
+		if (channel != null) {
+			try {
+				channel.close(); //Also cancels the key
+			} catch (IOException e) {
+				//Closing anyway
+			}
+		}
+	}
+
+	private int getPort() {
+		return uri.getPort() == -1 ? WebSocket.DEFAULT_PORT : uri.getPort();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				WebSocketImpl current = conn;
+				if (current != null && current.isOpen()) {
+					current.close(CloseFrame.NORMAL); //Close handshake, the channel is closed when it is done
+				} else if (current != null) {
+					current.eot();
+					closeChannel();
+				}
+			}
+		});
+	}
+
+	@Override
+	public void abort() {
+		loop.execute(new Runnable() {
+			@Override
+			public void run() {
+				failed(new IOException("Connection aborted"));
+			}
+		});
+	}
+
+	@Override
+	public void ping(long nanos) {
+		WebSocketImpl current = conn;
+		if (current != null) {
+			current.sendFrame(HeartbeatMonitor.createPing(nanos));
+		}
+	}
+
+	@Override
+	public void send(String frame) throws NotYetConnectedException {
+		WebSocketImpl current = conn;
+		if (current == null) {
+			throw new NotYetConnectedException();
+		}
+		current.send(frame);
+	}
+
+	@Override
+	public void send(byte[] frame) throws NotYetConnectedException {
+		WebSocketImpl current = conn;
+		if (current == null) {
+			throw new NotYetConnectedException();
+		}
+		current.send(frame);
+	}
+
+	@Override
+	public int getReadyState() {
+		WebSocketImpl current = conn;
+		return current == null ? WebSocket.READY_STATE_CONNECTING : current.getReadyState();
+	}
+
+	@Override
+	public void onWebsocketOpen(WebSocket webSocket, Handshakedata handshake) {
+		logger.debug("GpioRemoteControl: new connection opened: {}", uri);
+		gpioRemoteControlBinding.connectionOpened(hostConnection, this);
+	}
+
+	@Override
+	public void onWebsocketMessage(WebSocket webSocket, String message) {
+		logger.trace("GpioRemoteControl: received message of {}: {}", uri, message);
+		hostConnection.heard(this);
+		gpioRemoteControlBinding.frameReceived(uri, message);
+	}
+
+	@Override
+	public void onWebsocketMessage(WebSocket webSocket, ByteBuffer message) {
+		hostConnection.heard(this);
+		byte[] bytes = new byte[message.remaining()]; //The buffer is shared by all clients of the loop
+		message.get(bytes);
+		gpioRemoteControlBinding.frameReceived(uri, bytes);
+	}
+
+	@Override
+	public void onWebsocketPong(WebSocket webSocket, Framedata pong) {
+		hostConnection.heard(this);
+		gpioRemoteControlBinding.pongReceived(hostConnection, HeartbeatMonitor.getPingTime(pong));
+	}
+
+	@Override
+	public void onWebsocketClose(WebSocket webSocket, int code, String reason, boolean remote) {
+		logger.debug("GpioRemoteControl: connection {} closed with exit code {} additional info: {}", uri, code, reason);
+		gpioRemoteControlBinding.connectionLost(hostConnection, this);
+	}
+
+	@Override
+	public void onWebsocketError(WebSocket webSocket, Exception ex) {
+		logger.debug("GpioRemoteControl: an error occured on connection {}: {}", uri, ex.toString());
+	}
+
+	/**
+	 * Called by the WebSocket library when there are frames to write, from any thread.
+	 */
+	@Override
+	public void onWriteDemand(WebSocket webSocket) {
+		SelectionKey current = key;
+		if (current == null) {
+			return; //Written once connected
+		}
+		try {
+			current.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			current.selector().wakeup();
+		} catch (CancelledKeyException e) {
+			//Closed meanwhile
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.java_websocket.WebSocket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A few selector threads which multiplex the non-blocking channels of all {@link SelectorClient}s.
+ * The clients are spread round robin over the threads. A thread reads into one buffer for all its
+ * clients, so the number of threads and buffers doesn't grow with the number of hosts.
+ * <p>
+ * Everything a client does with its channel happens on its selector thread. Other threads hand
+ * work over by {@link Loop#execute(Runnable)}.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class SelectorTransport {
+
+	private static final Logger logger = LoggerFactory.getLogger(SelectorTransport.class);
+
+	/**
+	 * One selector and its thread.
+	 */
+	static class Loop implements Runnable {
+
+		private final Selector selector;
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		private final ByteBuffer readBuffer = ByteBuffer.allocate(WebSocket.RCVBUF);
+		private final Thread thread;
+		private volatile boolean running = true;
+
+		Loop(String name) throws IOException {
+			selector = Selector.open();
+			thread = new Thread(this, name);
+			thread.setDaemon(true);
+		}
+
+		Selector getSelector() {
+			return selector;
+		}
+
+		/**
+		 * Runs the task on the selector thread, before the next select.
+		 */
+		void execute(Runnable task) {
+			tasks.add(task);
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				try {
+					selector.select();
+				} catch (IOException e) {
+					logger.warn("GpioRemoteControl: Selector failed: {}", e.toString());
+					return;
+				}
+				Runnable task;
+				while ((task = tasks.poll()) != null) {
+					try {
+						task.run();
+					} catch (RuntimeException e) {
+						logger.warn("GpioRemoteControl: Selector task failed", e);
+					}
+				}
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					((SelectorClient) key.attachment()).handle(key, readBuffer);
+				}
+			}
+		}
+
+		void stop() {
+			running = false;
+			selector.wakeup();
+			try {
+				thread.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			for (SelectionKey key : selector.keys()) {
+				((SelectorClient) key.attachment()).transportStopped();
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+				//Closing anyway
+			}
+		}
+	}
+
+	private final Loop[] loops;
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * @param threads the number of selector threads, at least 1
+	 * @throws IOException if a selector can't be opened
+	 */
+	SelectorTransport(int threads) throws IOException {
+		loops = new Loop[Math.max(1, threads)];
+		for (int i = 0; i < loops.length; i++) {
+			loops[i] = new Loop("GpioRemoteControl Selector " + (i + 1));
+		}
+	}
+
+	void start() {
+		for (Loop loop : loops) {
+			loop.thread.start();
+		}
+	}
+
+	/**
+	 * Stops the threads and closes the channels of all clients. The clients report their
+	 * connections as lost, so they are connected again if the binding is activated again.
+	 */
+	void stop() {
+		for (Loop loop : loops) {
+			loop.stop();
+		}
+	}
+
+	/**
+	 * @return the loop of the next client
+	 */
+	Loop nextLoop() {
+		return loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+	}
+}
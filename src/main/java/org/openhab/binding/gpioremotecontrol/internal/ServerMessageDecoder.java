@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.Event;
+import home.control.model.PinInput;
+import home.control.model.Temperature;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes the frames sent by the GpioRemoteControl server in one streaming pass.
+ * The kind of a frame is taken from its <code>event</code> field. Frames without
+ * one (like {@link PinInput}) are recognized by their fields instead. Once the kind
+ * is known, fields of other shapes are skipped. An <code>ACK</code> frame carries the
+ * <code>seq</code> of the acknowledged command. A JSON array of temperature frames is the
+ * batched reply to a temperature request, other elements of the array are skipped.
+ * <p>
+ * The decoded values are written into objects owned by the decoder, which are
+ * reused for the next frame. Callers have to copy what they want to keep.
+ * Instances are not thread safe.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class ServerMessageDecoder {
+
+	enum MessageType {
+		PIN_INPUT, TEMPERATURE, TEMPERATURE_BATCH, ACK, UNKNOWN
+	}
+
+	private final PinInput pinInput = new PinInput();
+	private final Temperature temperature = new Temperature();
+	/** Grows to the largest batch, the first {@link #batchSize} entries are valid */
+	private final List<Temperature> batch = new ArrayList<>();
+	private int batchSize;
+	private int ackSeq;
+
+	/**
+	 * Decodes the given frame.
+	 *
+	 * @param message the JSON frame as received from the server
+	 * @return the kind of the frame. Its values are available by {@link #getPinInput()},
+	 * {@link #getTemperature()}, {@link #getTemperatures()} or {@link #getAckSeq()}.
+	 * @throws IOException if the frame is no valid JSON object
+	 */
+	MessageType decode(String message) throws IOException {
+		JsonReader reader = new JsonReader(new StringReader(message));
+		reader.setLenient(true);
+		try {
+			JsonToken token = reader.peek();
+			if (token == JsonToken.BEGIN_ARRAY) {
+				return readBatch(reader);
+			} else if (token != JsonToken.BEGIN_OBJECT) {
+				return MessageType.UNKNOWN;
+			}
+			return readObject(reader);
+		} catch (IllegalStateException e) { //Thrown by JsonReader for unexpected token types
+			throw new IOException("Unexpected content in server message: " + message, e);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private MessageType readBatch(JsonReader reader) throws IOException {
+		batchSize = 0;
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+				reader.skipValue();
+				continue;
+			} else if (readObject(reader) != MessageType.TEMPERATURE) {
+				continue;
+			}
+			if (batchSize == batch.size()) {
+				batch.add(new Temperature());
+			}
+			Temperature entry = batch.get(batchSize++);
+			entry.setDeviceId(temperature.getDeviceId());
+			entry.setName(temperature.getName());
+			entry.setTimeStamp(temperature.getTimeStamp());
+			entry.setTemperature(temperature.getTemperature());
+		}
+		reader.endArray();
+		return MessageType.TEMPERATURE_BATCH;
+	}
+
+	private MessageType readObject(JsonReader reader) throws IOException {
+		MessageType type = MessageType.UNKNOWN;
+		boolean hasEvent = false;
+		boolean hasNumber = false;
+		int number = -1;
+		boolean high = false;
+		long timeSinceLastChange = 0;
+		String deviceId = null;
+		String name = null;
+		long timeStamp = 0;
+		int temperatureValue = 0;
+		int seq = 0;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String field = reader.nextName();
+			if (field.equals("event")) {
+				type = toMessageType(reader.nextString());
+				hasEvent = true;
+			} else if (type != MessageType.TEMPERATURE && field.equals("number")) {
+				number = reader.nextInt();
+				hasNumber = true;
+			} else if (type != MessageType.TEMPERATURE && field.equals("high")) {
+				high = reader.nextBoolean();
+			} else if (type != MessageType.TEMPERATURE && field.equals("timeSinceLastChange")) {
+				timeSinceLastChange = reader.nextLong();
+			} else if (type != MessageType.PIN_INPUT && field.equals("deviceId")) {
+				deviceId = reader.nextString();
+			} else if (type != MessageType.PIN_INPUT && field.equals("name") && reader.peek() != JsonToken.NULL) {
+				name = reader.nextString();
+			} else if (type != MessageType.PIN_INPUT && field.equals("timeStamp")) {
+				timeStamp = reader.nextLong();
+			} else if (type != MessageType.PIN_INPUT && field.equals("temperature")) {
+				temperatureValue = reader.nextInt();
+			} else if (field.equals("seq")) {
+				seq = reader.nextInt();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (!hasEvent) { //No event field, guess by the fields
+			if (deviceId != null) {
+				type = MessageType.TEMPERATURE;
+			} else if (hasNumber) {
+				type = MessageType.PIN_INPUT;
+			}
+		}
+
+		if (type == MessageType.PIN_INPUT) {
+			if (number == -1) {
+				return MessageType.UNKNOWN;
+			}
+			pinInput.setNumber(number);
+			pinInput.setIsHigh(high);
+			pinInput.setTimeSinceLastChange(timeSinceLastChange);
+		} else if (type == MessageType.TEMPERATURE) {
+			if (deviceId == null || deviceId.isEmpty()) {
+				return MessageType.UNKNOWN;
+			}
+			temperature.setDeviceId(deviceId);
+			temperature.setName(name);
+			temperature.setTimeStamp(timeStamp);
+			temperature.setTemperature(temperatureValue);
+		} else if (type == MessageType.ACK) {
+			if (seq == 0) {
+				return MessageType.UNKNOWN;
+			}
+			ackSeq = seq;
+		}
+		return type;
+	}
+
+	private MessageType toMessageType(String event) {
+		if (Event.TEMP.name().equals(event)) {
+			return MessageType.TEMPERATURE;
+		} else if (Event.INPUT.name().equals(event)) {
+			return MessageType.PIN_INPUT;
+		} else if (Event.ACK.name().equals(event)) {
+			return MessageType.ACK;
+		}
+		return MessageType.UNKNOWN;
+	}
+
+	/**
+	 * @return the values of the last frame of type {@link MessageType#PIN_INPUT}
+	 */
+	PinInput getPinInput() {
+		return pinInput;
+	}
+
+	/**
+	 * @return the values of the last frame of type {@link MessageType#TEMPERATURE}
+	 */
+	Temperature getTemperature() {
+		return temperature;
+	}
+
+	/**
+	 * @return the values of the last frame of type {@link MessageType#TEMPERATURE_BATCH}
+	 */
+	List<Temperature> getTemperatures() {
+		return batch.subList(0, batchSize);
+	}
+
+	/**
+	 * @return the sequence id of the last frame of type {@link MessageType#ACK}
+	 */
+	int getAckSeq() {
+		return ackSeq;
+	}
+}
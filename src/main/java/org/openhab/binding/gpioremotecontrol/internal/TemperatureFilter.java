@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import home.control.model.HostAndTempAndPinConfiguration;
+import home.control.model.HostAndTempAndPinConfiguration.Aggregation;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which readings of a temperature item are published. Works on the raw values of
+ * the server in 1/1000 °C:
+ * <ul>
+ * <li>with an aggregation, the readings of a window are combined and only the result is a candidate</li>
+ * <li>a candidate is dropped if the last publish is younger than the minimum interval</li>
+ * <li>a candidate is dropped if it differs less than the deadband from the last published value</li>
+ * </ul>
+ * Without options every reading is published. A window starts with its first reading and is
+ * closed by a timer when its time is over, also if the sensor went quiet meanwhile.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class TemperatureFilter {
+
+	interface Publisher {
+		/** @param value the value to publish in 1/1000 °C */
+		void publish(int value);
+	}
+
+	private final HostAndTempAndPinConfiguration config;
+	private final ScheduledExecutorService scheduler;
+	private final Publisher publisher;
+
+	private boolean published;
+	private int lastPublished;
+	private long lastPublishTime;
+
+	private int windowCount;
+	private int windowNumber;
+	private long windowSum;
+	private int windowMin;
+	private int windowMax;
+	private ScheduledFuture<?> windowTimer;
+	private boolean stopped;
+
+	/**
+	 * @param config the options of the item
+	 * @param scheduler closes the aggregation windows
+	 * @param publisher publishes the accepted values
+	 */
+	TemperatureFilter(HostAndTempAndPinConfiguration config, ScheduledExecutorService scheduler, Publisher publisher) {
+		this.config = config;
+		this.scheduler = scheduler;
+		this.publisher = publisher;
+	}
+
+	/**
+	 * @return the config the filter was created for. A reconfigured item gets a new config object.
+	 */
+	HostAndTempAndPinConfiguration getConfig() {
+		return config;
+	}
+
+	/**
+	 * Handles a reading, it is published now or as part of its window.
+	 *
+	 * @param temperature the received reading in 1/1000 °C
+	 * @param now the current time in ms
+	 */
+	synchronized void accept(int temperature, long now) {
+		if (stopped) {
+			return;
+		}
+		if (config.temperatureAggregation == Aggregation.NONE) {
+			offer(temperature, now);
+			return;
+		}
+		if (windowCount == 0) {
+			windowSum = 0;
+			windowMin = temperature;
+			windowMax = temperature;
+			final int window = ++windowNumber;
+			windowTimer = scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					closeWindow(window);
+				}
+			}, config.temperatureWindow, TimeUnit.MILLISECONDS);
+		}
+		windowCount++;
+		windowSum += temperature;
+		windowMin = Math.min(windowMin, temperature);
+		windowMax = Math.max(windowMax, temperature);
+	}
+
+	/** Stops the filter, e.g. because the item was reconfigured. An open window is dropped. */
+	synchronized void stop() {
+		stopped = true;
+		if (windowTimer != null) {
+			windowTimer.cancel(false);
+		}
+	}
+
+	private synchronized void closeWindow(int window) {
+		if (stopped || windowCount == 0 || window != windowNumber) {
+			return;
+		}
+		int candidate = aggregate();
+		windowCount = 0;
+		offer(candidate, System.currentTimeMillis());
+	}
+
+	private void offer(int candidate, long now) {
+		if (published) {
+			if (now - lastPublishTime < config.temperatureMinInterval) {
+				return;
+			}
+			if (Math.abs(candidate - lastPublished) < config.temperatureDeadband) {
+				return;
+			}
+		}
+		published = true;
+		lastPublished = candidate;
+		lastPublishTime = now;
+		publisher.publish(candidate);
+	}
+
+	private int aggregate() {
+		switch (config.temperatureAggregation) {
+		case MIN:
+			return windowMin;
+		case MAX:
+			return windowMax;
+		default:
+			return (int) Math.round((double) windowSum / windowCount);
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2010-2015, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.gpioremotecontrol.internal;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests the readings of the temperature sensors of the polled hosts, with one request
+ * per host for all its sensors which are due.
+ * <p>
+ * Every sensor has its own poll interval between the minimum and the maximum. It is doubled
+ * after every reading which differs less than the stable threshold from the one before,
+ * and falls back to the minimum as soon as a reading differs more. So a sensor in a steady
+ * room is read every few minutes, while one near a heater being switched on is read fast.
+ * Sensors which are due soon are requested together with the due ones, so the sensors of a
+ * host tend to share their requests. Readings the Pi sends by itself count like polled ones.
+ *
+ * @author MichaelP
+ * @since 1.0
+ */
+class TemperaturePoller {
+
+	interface Source {
+		/** @return the device ids of the sensors bound to items on the host */
+		Collection<String> getDeviceIds(URI hostUri);
+	}
+
+	interface Requester {
+		/** @return <code>false</code> if the request could not be sent, e.g. because the host is not connected */
+		boolean request(URI hostUri, List<String> deviceIds);
+	}
+
+	private static class Sensor {
+		long interval;
+		long nextPoll;
+		int lastValue;
+		boolean hasValue;
+	}
+
+	private final ScheduledExecutorService scheduler;
+	private final Set<URI> hosts;
+	private final long minInterval;
+	private final long maxInterval;
+	private final int stableThreshold;
+	private final long tick;
+	private final Source source;
+	private final Requester requester;
+
+	/** host -> device id -> schedule, each map guarded by itself */
+	private final ConcurrentMap<URI, Map<String, Sensor>> sensors = new ConcurrentHashMap<>();
+	private ScheduledFuture<?> task;
+
+	/**
+	 * @param scheduler runs the polls
+	 * @param hosts the hosts whose sensors are polled
+	 * @param minInterval the poll interval in ms of changing sensors
+	 * @param maxInterval the poll interval in ms of stable sensors
+	 * @param stableThreshold the largest change in 1/1000 °C between two readings of a stable sensor
+	 * @param source knows the sensors of the hosts
+	 * @param requester sends the requests
+	 */
+	TemperaturePoller(ScheduledExecutorService scheduler, Set<URI> hosts, long minInterval, long maxInterval, int stableThreshold,
+			Source source, Requester requester) {
+		this.scheduler = scheduler;
+		this.hosts = hosts;
+		this.minInterval = minInterval;
+		this.maxInterval = Math.max(minInterval, maxInterval);
+		this.stableThreshold = stableThreshold;
+		this.tick = Math.max(100, minInterval / 4);
+		this.source = source;
+		this.requester = requester;
+	}
+
+	boolean isPolled(URI hostUri) {
+		return hosts.contains(hostUri);
+	}
+
+	void start() {
+		task = scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				poll(System.currentTimeMillis());
+			}
+		}, tick, tick, TimeUnit.MILLISECONDS);
+	}
+
+	void stop() {
+		if (task != null) {
+			task.cancel(false);
+			task = null;
+		}
+	}
+
+	/**
+	 * Sends one request to every host which has sensors due at the given time or within the next tick.
+	 */
+	void poll(long now) {
+		for (URI hostUri : hosts) {
+			Collection<String> deviceIds = source.getDeviceIds(hostUri);
+			if (deviceIds.isEmpty()) {
+				sensors.remove(hostUri);
+				continue;
+			}
+			Map<String, Sensor> hostSensors = getSensors(hostUri);
+			List<String> due = new ArrayList<>();
+			synchronized (hostSensors) {
+				hostSensors.keySet().retainAll(deviceIds); //Forget the sensors of removed items
+				for (String deviceId : deviceIds) {
+					Sensor sensor = hostSensors.get(deviceId);
+					if (sensor == null) {
+						sensor = new Sensor();
+						sensor.interval = minInterval;
+						hostSensors.put(deviceId, sensor);
+					}
+					if (sensor.nextPoll <= now + tick && due.size() < 0xFF) { //255 is the limit of the binary request
+						due.add(deviceId);
+					}
+				}
+			}
+			if (due.isEmpty() || !requester.request(hostUri, due)) {
+				continue; //Not sent, the sensors stay due
+			}
+			synchronized (hostSensors) {
+				for (String deviceId : due) {
+					Sensor sensor = hostSensors.get(deviceId);
+					if (sensor != null) {
+						sensor.nextPoll = now + sensor.interval; //Polled again if the reading is lost
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adapts the poll interval of the sensor to the reading and schedules its next poll.
+	 *
+	 * @param value the reading in 1/1000 °C
+	 */
+	void reading(URI hostUri, String deviceId, int value, long now) {
+		Map<String, Sensor> hostSensors = sensors.get(hostUri);
+		if (hostSensors == null) {
+			return; //Host is not polled
+		}
+		synchronized (hostSensors) {
+			Sensor sensor = hostSensors.get(deviceId);
+			if (sensor == null) {
+				return;
+			}
+			if (sensor.hasValue && Math.abs(value - sensor.lastValue) <= stableThreshold) {
+				sensor.interval = Math.min(maxInterval, sensor.interval * 2);
+			} else if (sensor.hasValue) {
+				sensor.interval = minInterval;
+			}
+			sensor.lastValue = value;
+			sensor.hasValue = true;
+			sensor.nextPoll = now + sensor.interval;
+		}
+	}
+
+	/**
+	 * @return the current poll interval in ms of the sensor, 0 if it is not polled
+	 */
+	long getInterval(URI hostUri, String deviceId) {
+		Map<String, Sensor> hostSensors = sensors.get(hostUri);
+		if (hostSensors == null) {
+			return 0;
+		}
+		synchronized (hostSensors) {
+			Sensor sensor = hostSensors.get(deviceId);
+			return sensor == null ? 0 : sensor.interval;
+		}
+	}
+
+	void remove(URI hostUri) {
+		sensors.remove(hostUri);
+	}
+
+	private Map<String, Sensor> getSensors(URI hostUri) {
+		Map<String, Sensor> hostSensors = sensors.get(hostUri);
+		if (hostSensors == null) {
+			sensors.putIfAbsent(hostUri, new HashMap<String, Sensor>());
+			hostSensors = sensors.get(hostUri);
+		}
+		return hostSensors;
+	}
+}